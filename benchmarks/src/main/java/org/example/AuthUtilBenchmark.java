@@ -0,0 +1,47 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuthUtil.isAdminOrOwner for the three outcomes: admin, owner, someone else
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthUtilBenchmark {
+
+    private Authentication admin;
+    private Authentication user;
+
+    @Setup
+    public void setUp() {
+        admin = new UsernamePasswordAuthenticationToken("admin@example.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        user = new UsernamePasswordAuthenticationToken("user@example.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    @Benchmark
+    public boolean admin() {
+        return AuthUtil.isAdminOrOwner(admin, "user@example.com");
+    }
+
+    @Benchmark
+    public boolean owner() {
+        return AuthUtil.isAdminOrOwner(user, "user@example.com");
+    }
+
+    @Benchmark
+    public boolean otherUser() {
+        return AuthUtil.isAdminOrOwner(user, "other@example.com");
+    }
+}
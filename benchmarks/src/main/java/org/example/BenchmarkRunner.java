@@ -0,0 +1,25 @@
+package org.example;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the allocation profiler (gc) and writes the results as JSON
+ *
+ * java -jar target/benchmarks.jar                  - everything, results in jmh-result.json
+ * java -jar target/benchmarks.jar Jwt results.json - benchmarks matching "Jwt", results in results.json
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : ".*Benchmark.*")
+                .addProfiler(GCProfiler.class)  // gc.alloc.rate.norm = bytes allocated per operation
+                .resultFormat(ResultFormatType.JSON)
+                .result(args.length > 1 ? args[1] : "jmh-result.json");
+        new Runner(options.build()).run();
+    }
+}
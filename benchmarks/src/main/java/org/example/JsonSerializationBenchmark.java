@@ -0,0 +1,67 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the response bodies, for lists of different sizes
+ * Uses an ObjectMapper configured like the one Spring Boot creates
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"1", "20", "100", "1000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Post> posts;
+    private List<User> users;
+    private List<UserSummary> summaries;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        posts = new ArrayList<>(size);
+        users = new ArrayList<>(size);
+        summaries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            User user = new User("Name" + i, "LastName" + i, 18 + i % 80, "password" + i, "user" + i + "@example.com");
+            user.setId((long) i);
+            Post post = new Post("Title " + i, "Some content for post number " + i, user);
+            post.setId((long) i);
+            post.setCreatedDate(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i));
+            user.getPosts().add(post);
+            posts.add(post);
+            users.add(user);
+            summaries.add(UserSummary.from(user));
+        }
+    }
+
+    @Benchmark
+    public byte[] posts() throws Exception {
+        return objectMapper.writeValueAsBytes(posts);
+    }
+
+    // Full entities, each with its posts - what GET /users/{id} and /users/email/{email} return
+    @Benchmark
+    public byte[] users() throws Exception {
+        return objectMapper.writeValueAsBytes(users);
+    }
+
+    // Projections returned by the user listings
+    @Benchmark
+    public byte[] userSummaries() throws Exception {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+}
@@ -0,0 +1,57 @@
+package org.example;
+
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One pass through JwtAuthenticationFilter.doFilterInternal with a mock request and response
+ * header: valid token, invalid signature, or no Authorization header at all
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"valid", "invalid", "none"})
+    public String header;
+
+    @Param({"false", "true"})
+    public boolean cacheEnabled;
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setUp() {
+        filter = new JwtAuthenticationFilter();
+        filter.jwtUtil = JwtUtilBenchmark.createJwtUtil(cacheEnabled);
+        String token = filter.jwtUtil.generateToken("user@example.com", Role.USER);
+        authorization = switch (header) {
+            case "valid" -> "Bearer " + token;
+            case "invalid" -> "Bearer " + token.substring(0, token.length() - 2) + "xx";
+            default -> null;
+        };
+    }
+
+    @Benchmark
+    public int doFilterInternal() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/1");
+        if (authorization != null) request.addHeader("Authorization", authorization);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilterInternal(request, response, chain);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response.getStatus();
+    }
+}
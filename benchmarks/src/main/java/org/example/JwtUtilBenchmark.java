@@ -0,0 +1,61 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token creation and the reads that run on every authenticated request
+ * cacheEnabled=false shows the cost of a full signature check, true the verified-claims cache
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    @Param({"false", "true"})
+    public boolean cacheEnabled;
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = createJwtUtil(cacheEnabled);
+        token = jwtUtil.generateToken("user@example.com", Role.USER);
+    }
+
+    // Creates a JwtUtil the way Spring would (injected values + @PostConstruct)
+    static JwtUtil createJwtUtil(boolean cacheEnabled) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "SECRET_KEY", "benchmarkSecretKey1234567890123456789012345");
+        ReflectionTestUtils.setField(jwtUtil, "cacheEnabled", cacheEnabled);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 10_000L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("user@example.com", Role.USER);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public String extractEmail() {
+        return jwtUtil.extractEmail(token);
+    }
+
+    @Benchmark
+    public String extractRole() {
+        return jwtUtil.extractRole(token);
+    }
+}
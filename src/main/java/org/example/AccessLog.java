@@ -0,0 +1,288 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous access log - one JSON line per request (written by AccessLogFilter)
+ *
+ * Request threads copy their fields into a preallocated slot of a ring buffer and return;
+ * no lock, no I/O, no allocation on the request path. A single writer thread drains the ring
+ * in batches, formats the lines and writes each batch with one write to access-log.file,
+ * which rolls over at access-log.max-file-size (keeping access-log.max-history old files).
+ *
+ * When the ring is full access-log.when-full decides: drop (count the entry in access.log.dropped
+ * and go on) or block (the request thread waits for a free slot).
+ */
+@Component
+public class AccessLog {
+    private static final Logger logger = LoggerFactory.getLogger(AccessLog.class);
+    // How long the writer sleeps when the ring is empty
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    enum WhenFull { DROP, BLOCK }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${access-log.enabled:true}")
+    private boolean enabled;
+
+    @Value("${access-log.file:logs/access.log}")
+    private Path file;
+
+    @Value("${access-log.max-file-size:100MB}")
+    private DataSize maxFileSize;
+
+    @Value("${access-log.max-history:10}")
+    private int maxHistory;
+
+    // Slots in the ring, rounded up to a power of two
+    @Value("${access-log.buffer-size:8192}")
+    private int bufferSize;
+
+    // Entries per write
+    @Value("${access-log.batch-size:256}")
+    private int batchSize;
+
+    @Value("${access-log.when-full:drop}")
+    private WhenFull whenFull;
+
+    // One request - the slots are reused, request threads only fill in fields
+    static final class Entry {
+        long timestamp;
+        String requestId;
+        String method;
+        String route;
+        int status;
+        long latencyMicros;
+        String principal;
+        String ip;
+    }
+
+    // Bounded multi-producer ring (Vyukov): a slot is free for position p when its sequence is p,
+    // filled when it is p + 1. Producers claim positions with a CAS on tail, only the writer moves head
+    private Entry[] entries;
+    private AtomicLongArray sequences;
+    private int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private Thread writer;
+    private volatile boolean running;
+    private Counter dropped;
+
+    // Writer thread only
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream(64 * 1024);
+    private JsonGenerator generator;
+    private OutputStream out;
+    private long fileSize;
+
+    @PostConstruct
+    void init() throws IOException {
+        createBuffer();
+        if (enabled) startWriter();
+    }
+
+    void createBuffer() throws IOException {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        entries = new Entry[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new Entry();
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+        generator = objectMapper.getFactory().createGenerator(batch);
+        generator.setRootValueSeparator(null); // we write our own '\n' between lines
+
+        if (meterRegistry != null) {
+            dropped = Counter.builder("access.log.dropped")
+                    .description("Access log entries dropped because the ring buffer was full")
+                    .register(meterRegistry);
+            Gauge.builder("access.log.pending", this, AccessLog::pending)
+                    .description("Access log entries waiting for the writer")
+                    .register(meterRegistry);
+        }
+    }
+
+    private void startWriter() {
+        running = true;
+        writer = new Thread(this::writeLoop, "access-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Access log: {} ({} slots, {} when full)", file.toAbsolutePath(), entries.length, whenFull);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (writer == null) return;
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues one request for the log - returns right away (or waits for a free slot with when-full=block)
+     * @return false when the entry was dropped
+     */
+    public boolean append(long timestamp, String requestId, String method, String route, int status,
+                          long latencyMicros, String principal, String ip) {
+        long position = claim();
+        if (position < 0) {
+            if (dropped != null) dropped.increment();
+            return false;
+        }
+        int index = (int) position & mask;
+        Entry entry = entries[index];
+        entry.timestamp = timestamp;
+        entry.requestId = requestId;
+        entry.method = method;
+        entry.route = route;
+        entry.status = status;
+        entry.latencyMicros = latencyMicros;
+        entry.principal = principal;
+        entry.ip = ip;
+        // Publishes the fields above to the writer
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    // Claims the next free slot, -1 when the ring is full and the entry is dropped
+    private long claim() {
+        long position = tail.get();
+        while (true) {
+            long diff = sequences.get((int) position & mask) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) return position;
+                position = tail.get();
+            } else if (diff < 0) {
+                // Full - the writer has not freed this slot from the previous round yet
+                if (whenFull == WhenFull.DROP || !running) return -1;
+                LockSupport.parkNanos(10_000);
+                position = tail.get();
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    long pending() {
+        return Math.max(0, tail.get() - head);
+    }
+
+    private void writeLoop() {
+        while (running || pending() > 0) {
+            try {
+                if (drain(batchSize) == 0) LockSupport.parkNanos(IDLE_PARK_NANOS);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Access log write failed: {}", e.getMessage());
+                closeFile();
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+        closeFile();
+    }
+
+    /**
+     * Writes up to max queued entries to the file (writer thread only)
+     * @return number of entries written
+     */
+    int drain(int max) throws IOException {
+        int count = 0;
+        batch.reset();
+        for (long position = head; count < max; position++, count++) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) break;  // not published yet
+            write(entries[index]);
+            sequences.set(index, position + entries.length);
+            head = position + 1;
+        }
+        if (count == 0) return 0;
+        generator.flush();
+        if (out == null) openFile();
+        batch.writeTo(out);
+        out.flush();
+        fileSize += batch.size();
+        if (fileSize >= maxFileSize.toBytes()) roll();
+        return count;
+    }
+
+    private void write(Entry entry) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("time", Instant.ofEpochMilli(entry.timestamp).toString());
+        generator.writeStringField("requestId", entry.requestId);
+        generator.writeStringField("method", entry.method);
+        generator.writeStringField("route", entry.route);
+        generator.writeNumberField("status", entry.status);
+        generator.writeNumberField("latencyMicros", entry.latencyMicros);
+        if (entry.principal != null) generator.writeStringField("principal", entry.principal);
+        generator.writeStringField("ip", entry.ip);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private void openFile() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        fileSize = Files.size(file);
+    }
+
+    private void closeFile() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            logger.warn("Could not close the access log: {}", e.getMessage());
+        }
+        out = null;
+    }
+
+    // access.log -> access.log.1 -> ... -> access.log.<max-history>, the oldest one is overwritten
+    private void roll() throws IOException {
+        closeFile();
+        for (int i = maxHistory - 1; i >= 1; i--) {
+            Path older = rolled(i);
+            if (Files.exists(older)) Files.move(older, rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (maxHistory > 0) Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        else Files.delete(file);
+        openFile();
+    }
+
+    private Path rolled(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
@@ -0,0 +1,99 @@
+package org.example;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Hands every request to the AccessLog once it is answered - request id, route, status, latency, principal
+ *
+ * Runs first, outside the security filters, so requests rejected there (401, 429) are logged too.
+ * The request id comes from the X-Request-Id header when the client (or a proxy) sent a sane one,
+ * otherwise a new one is made; it is sent back in X-Request-Id.
+ * Async requests (the live feed) are logged when they complete.
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AccessLogFilter extends OncePerRequestFilter {
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    // Set by JwtAuthenticationFilter - the security context is already cleared when the request is logged
+    public static final String PRINCIPAL_ATTRIBUTE = AccessLogFilter.class.getName() + ".principal";
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Autowired
+    private AccessLog accessLog;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !accessLog.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long timestamp = System.currentTimeMillis();
+        long start = System.nanoTime();
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId == null || !VALID_REQUEST_ID.matcher(requestId).matches()) {
+            requestId = Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+        }
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+
+        try {
+            filterChain.doFilter(request, response);
+        } catch (ServletException | IOException | RuntimeException | Error e) {
+            // The container turns the exception into an error response only after this filter returns,
+            // so the status is still 200 here unless the response was already committed
+            log(request, requestId, timestamp, start, response.isCommitted() ? response.getStatus() : 500);
+            throw e;
+        }
+
+        if (request.isAsyncStarted()) {
+            String id = requestId;
+            request.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    log(request, id, timestamp, start, response.getStatus());
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        } else {
+            log(request, requestId, timestamp, start, response.getStatus());
+        }
+    }
+
+    private void log(HttpServletRequest request, String requestId, long timestamp, long start, int status) {
+        // The mapped pattern (/users/{userId}/posts) when the request reached a controller, the path otherwise
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern != null ? pattern.toString() : request.getRequestURI();
+        accessLog.append(timestamp, requestId, request.getMethod(), route, status,
+                (System.nanoTime() - start) / 1000, (String) request.getAttribute(PRINCIPAL_ATTRIBUTE),
+                request.getRemoteAddr());
+    }
+}
@@ -2,19 +2,24 @@ package org.example;
 
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 /**
  * AuthController - Handles user authentication operations
  * Provides endpoints for user registration and login
  * Now integrated with JWT token generation for login
+ *
+ * Both endpoints return a CompletableFuture - the request thread is released while BCrypt
+ * runs on the PasswordHasher pool, the response is written when the hash is done
  */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RestController // Makes this class a REST API controller
 public class AuthController {
     private static final Logger logger= LoggerFactory.getLogger(AuthController.class);
@@ -23,9 +28,11 @@ public class AuthController {
     @Autowired
     private UserRepository userRepository; // For database operations on users
     @Autowired
-    private PasswordEncoder passwordEncoder; // For hashing and verifying passwords
+    private PasswordHasher passwordHasher; // Hashes and verifies passwords on a bounded pool, off the request threads
     @Autowired
     private JwtUtil jwtUtil; // NEW: For generating and validating JWT tokens
+    @Autowired
+    private UserPostStatsService userPostStatsService; // Creates users together with their post counters
 
     /**
      * User Registration endpoint
@@ -34,22 +41,23 @@ public class AuthController {
      * @return ResponseEntity with success/error message
      */
     @PostMapping("/auth/register")
-    public ResponseEntity<String> register(@Valid @RequestBody User user){
-        logger.info("Creating new user: {} {}", user.getName(), user.getLastName());
+    public CompletableFuture<ResponseEntity<String>> register(@Valid @RequestBody User user){
+        logger.debug("Creating new user: {} {}", user.getName(), user.getLastName());
         // Check if email already exists in database
         Optional<User> optionalUser = userRepository.findByEmail(user.getEmail());
         // If email exists, return error (emails must be unique)
-        if (optionalUser.isPresent())return ResponseEntity.badRequest().body("Email already exists");
+        if (optionalUser.isPresent()) return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Email already exists"));
 
         // Hash the password before saving (NEVER store plain text passwords)
-        String hashedPassword = passwordEncoder.encode(user.getPassword());
-        user.setPassword(hashedPassword);
+        return passwordHasher.encode(user.getPassword()).thenApply(hashedPassword -> {
+            user.setPassword(hashedPassword);
 
-        // Save user to database
-        userRepository.save(user);
-        logger.info("User: {} {} created successfully with ID: {}"
-                , user.getName(), user.getLastName(), user.getId());
-        return  ResponseEntity.ok("User registered successfully");
+            // Save user to database (with their empty post counters)
+            userPostStatsService.createUser(user);
+            logger.debug("User: {} {} created successfully with ID: {}"
+                    , user.getName(), user.getLastName(), user.getId());
+            return ResponseEntity.ok("User registered successfully");
+        });
     }
 
     /**
@@ -59,29 +67,41 @@ public class AuthController {
      * @return ResponseEntity with JWT token or error message
      */
     @PostMapping("/auth/login")
-    public ResponseEntity<String>login(@RequestBody LoginRequest loginRequest){
-        logger.info("User with email:{} ,try to login.",loginRequest.getEmail());
+    public CompletableFuture<ResponseEntity<String>> login(@RequestBody LoginRequest loginRequest){
+        logger.debug("User with email:{} ,try to login.",loginRequest.getEmail());
         // Search for user by email in database
         Optional<User> optionalUser = userRepository.findByEmail(loginRequest.getEmail());
-        // If user exists in database
-        if (optionalUser.isPresent()){
-            User userToCheck = optionalUser.get();  // Extract user from Optional
+        // User not found - don't reveal if email exists (security best practice)
+        if (optionalUser.isEmpty()){
+            logger.debug("User notFound, can not login.");
+            return CompletableFuture.completedFuture(ResponseEntity.status(401).body("Invalid email or password"));
+        }
+        User userToCheck = optionalUser.get();  // Extract user from Optional
 
-            // Verify password: compare plain text with hashed password
-            // passwordEncoder.matches(plainText, hashedPassword) returns true/false
-            if (passwordEncoder.matches(loginRequest.getPassword(), userToCheck.getPassword())){
-                logger.info("User login successfully.");
-                // NEW JWT FUNCTIONALITY:
-                // Instead of returning "Login successful" message,
-                // generate JWT token containing user's email and return it
-                String jwtToken = jwtUtil.generateToken(loginRequest.getEmail(), userToCheck.getRole());
-                return ResponseEntity.ok(jwtToken);  // Return the actual JWT token
-            }
+        // Verify password: compare plain text with hashed password
+        // passwordHasher.matches(plainText, hashedPassword) completes with true/false
+        return passwordHasher.matches(loginRequest.getPassword(), userToCheck.getPassword()).thenCompose(match -> {
             // Password doesn't match - return same error as "user not found" (security)
-            return ResponseEntity.status(401).body("Invalid email or password");
-        }
-        // User not found - don't reveal if email exists (security best practice)
-        logger.info("User notFound, can not login.");
-        return ResponseEntity.status(401).body("Invalid email or password");
+            if (!match) return CompletableFuture.completedFuture(ResponseEntity.status(401).body("Invalid email or password"));
+            logger.debug("User login successfully.");
+            // The hash was made with an older BCrypt cost - we have the plain password now, so replace it
+            if (!passwordHasher.needsRehash(userToCheck.getPassword())) {
+                return CompletableFuture.completedFuture(token(loginRequest, userToCheck));
+            }
+            return passwordHasher.encode(loginRequest.getPassword()).thenApply(hashedPassword -> {
+                userToCheck.setPassword(hashedPassword);
+                userRepository.save(userToCheck);
+                logger.info("Password hash of user ID: {} upgraded to the configured cost", userToCheck.getId());
+                return token(loginRequest, userToCheck);
+            });
+        });
+    }
+
+    // NEW JWT FUNCTIONALITY:
+    // Instead of returning "Login successful" message,
+    // generate JWT token containing user's email and return it
+    private ResponseEntity<String> token(LoginRequest loginRequest, User user) {
+        String jwtToken = jwtUtil.generateToken(loginRequest.getEmail(), user.getRole());
+        return ResponseEntity.ok(jwtToken);  // Return the actual JWT token
     }
 }
@@ -33,4 +33,12 @@ public class GlobalExceptionHandler {
             return ResponseEntity.badRequest().body(errorsResponse);
     }
 
+    @ExceptionHandler(PasswordHashingUnavailableException.class) //Password hashing pool is full - fail fast instead of queueing forever
+    public ResponseEntity<String> handleHashingUnavailable(PasswordHashingUnavailableException exception){
+        logger.warn("Password hashing unavailable: {}", exception.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(exception.getMessage());
+    }
+
 }
@@ -0,0 +1,125 @@
+package org.example;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/hibernate - Hibernate statistics and the slow query log (ADMIN only)
+ *
+ * GET shows totals, per-query timings (most total time first), cache regions and slow statements
+ * DELETE resets the statistics and empties the slow query log
+ */
+@Component
+@Endpoint(id = "hibernate")
+public class HibernateStatisticsEndpoint {
+    private final Statistics statistics;
+    private final ObjectProvider<SlowQueryLog> slowQueryLog;
+
+    public HibernateStatisticsEndpoint(EntityManagerFactory entityManagerFactory, ObjectProvider<SlowQueryLog> slowQueryLog) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /** Timings of one HQL/JPQL query - times in milliseconds */
+    public record QueryStats(String query, long executions, long totalMillis, long avgMillis, long maxMillis,
+                             long rows, long cacheHits, long cacheMisses) {}
+
+    /** Second-level or query cache region */
+    public record RegionStats(String region, long hits, long misses, long puts, long elementsInMemory) {}
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("enabled", statistics.isStatisticsEnabled());
+        report.put("since", statistics.getStart());
+
+        Map<String, Object> queries = new LinkedHashMap<>();
+        queries.put("executions", statistics.getQueryExecutionCount());
+        queries.put("maxMillis", statistics.getQueryExecutionMaxTime());
+        queries.put("slowest", statistics.getQueryExecutionMaxTimeQueryString());
+        queries.put("prepareStatements", statistics.getPrepareStatementCount());
+        queries.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        queries.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        report.put("queries", queries);
+
+        Map<String, Object> entities = new LinkedHashMap<>();
+        entities.put("loads", statistics.getEntityLoadCount());
+        entities.put("fetches", statistics.getEntityFetchCount());
+        entities.put("inserts", statistics.getEntityInsertCount());
+        entities.put("updates", statistics.getEntityUpdateCount());
+        entities.put("deletes", statistics.getEntityDeleteCount());
+        entities.put("collectionLoads", statistics.getCollectionLoadCount());
+        entities.put("collectionFetches", statistics.getCollectionFetchCount());
+        report.put("entities", entities);
+
+        Map<String, Object> cache = new LinkedHashMap<>();
+        cache.put("hits", statistics.getSecondLevelCacheHitCount());
+        cache.put("misses", statistics.getSecondLevelCacheMissCount());
+        cache.put("puts", statistics.getSecondLevelCachePutCount());
+        cache.put("regions", regions());
+        report.put("secondLevelCache", cache);
+
+        Map<String, Object> sessions = new LinkedHashMap<>();
+        sessions.put("opened", statistics.getSessionOpenCount());
+        sessions.put("transactions", statistics.getTransactionCount());
+        sessions.put("flushes", statistics.getFlushCount());
+        sessions.put("connections", statistics.getConnectCount());
+        report.put("sessions", sessions);
+
+        report.put("queryStats", queryStats());
+
+        SlowQueryLog log = slowQueryLog.getIfAvailable();
+        if (log != null) {
+            Map<String, Object> slow = new LinkedHashMap<>();
+            slow.put("thresholdMillis", log.getThreshold().toMillis());
+            slow.put("count", log.getCount());
+            slow.put("entries", log.getEntries());
+            report.put("slowQueries", slow);
+        }
+        return report;
+    }
+
+    @DeleteOperation
+    public void clear() {
+        statistics.clear();
+        SlowQueryLog log = slowQueryLog.getIfAvailable();
+        if (log != null) log.clear();
+    }
+
+    // Per-query timings, the queries that cost the most time in total first
+    private List<QueryStats> queryStats() {
+        List<QueryStats> stats = new ArrayList<>();
+        for (String query : statistics.getQueries()) {
+            QueryStatistics q = statistics.getQueryStatistics(query);
+            stats.add(new QueryStats(query, q.getExecutionCount(), q.getExecutionTotalTime(), q.getExecutionAvgTime(),
+                    q.getExecutionMaxTime(), q.getExecutionRowCount(), q.getCacheHitCount(), q.getCacheMissCount()));
+        }
+        stats.sort(Comparator.comparingLong(QueryStats::totalMillis).reversed());
+        return stats;
+    }
+
+    private List<RegionStats> regions() {
+        List<RegionStats> regions = new ArrayList<>();
+        for (String name : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region == null) continue;
+            regions.add(new RegionStats(name, region.getHitCount(), region.getMissCount(), region.getPutCount(),
+                    region.getElementCountInMemory()));
+        }
+        return regions;
+    }
+}
@@ -1,6 +1,10 @@
 package org.example;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -13,6 +17,8 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JwtAuthenticationFilter - Security Filter for JWT Token Validation
@@ -23,12 +29,38 @@ import java.util.List;
  * Extends OncePerRequestFilter to ensure this filter runs exactly once per request
  * (prevents multiple executions that could occur in complex filter chains)
  */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Autowired
     JwtUtil jwtUtil;
 
+    // Stage timers - percentile histograms and SLO buckets are configured in application.properties
+    @Autowired(required = false)
+    MeterRegistry meterRegistry;
+
+    // Registered once, the tag combinations are fixed - null without a MeterRegistry
+    private Timer publicTimer;
+    private Timer anonymousTimer;
+    private Timer invalidTimer;
+    private Timer authenticatedTimer;
+    private Timer verifyValidTimer;
+    private Timer verifyInvalidTimer;
+    private Timer authenticateTimer;
+
+    @PostConstruct
+    void init() {
+        if (meterRegistry == null) return;
+        publicTimer = Timer.builder("jwt.filter").tag("outcome", "public").register(meterRegistry);
+        anonymousTimer = Timer.builder("jwt.filter").tag("outcome", "anonymous").register(meterRegistry);
+        invalidTimer = Timer.builder("jwt.filter").tag("outcome", "invalid").register(meterRegistry);
+        authenticatedTimer = Timer.builder("jwt.filter").tag("outcome", "authenticated").register(meterRegistry);
+        verifyValidTimer = Timer.builder("jwt.filter.stage").tags("stage", "verify", "outcome", "valid").register(meterRegistry);
+        verifyInvalidTimer = Timer.builder("jwt.filter.stage").tags("stage", "verify", "outcome", "invalid").register(meterRegistry);
+        authenticateTimer = Timer.builder("jwt.filter.stage").tags("stage", "authenticate", "outcome", "success").register(meterRegistry);
+    }
+
     /**
      * Core filter method - executed for every HTTP request
      *
@@ -42,10 +74,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     FilterChain filterChain)
             throws ServletException, IOException {
 
+        long start = System.nanoTime();
         String requestPath = request.getRequestURI();
 
         // Skip JWT validation for public endpoints
         if (requestPath.equals("/auth/login") || requestPath.equals("/auth/register")) {
+            record(publicTimer, start);
             filterChain.doFilter(request, response);
             return;
         }
@@ -55,6 +89,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         // STEP 2: Check if Authorization header exists and has correct format
         if (authHeader == null || !authHeader.startsWith("Bearer ")){
+            record(anonymousTimer, start);
             filterChain.doFilter(request,response);
             return;
         }
@@ -62,17 +97,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // STEP 3: Extract actual JWT token (remove "Bearer " prefix)
         String token = authHeader.substring(7);
 
-        // STEP 4: Validate the JWT token
-        if (!jwtUtil.validateToken(token)){
+        // STEP 4: Verify the JWT token once (signature + expiration) and read its claims
+        long verifyStart = System.nanoTime();
+        Optional<JwtClaims> claims = jwtUtil.verify(token);
+        record(claims.isPresent() ? verifyValidTimer : verifyInvalidTimer, verifyStart);
+        if (claims.isEmpty()){
             response.setStatus(401);
             response.getWriter().write("Invalid token");
+            record(invalidTimer, start);
             return;
         }
 
         // STEP 5: Token is valid - Extract user information
-        String email = jwtUtil.extractEmail(token);
-        String role = jwtUtil.extractRole(token);
+        String email = claims.get().email();
+        String role = claims.get().role();
 
+        long authenticateStart = System.nanoTime();
         // STEP 6: Create Authentication object
         // This tells Spring Security: "This user is authenticated!"
         UsernamePasswordAuthenticationToken authentication =
@@ -85,8 +125,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // STEP 7: Set authentication in SecurityContext
         // Spring Security will now recognize this user as authenticated
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        request.setAttribute(AccessLogFilter.PRINCIPAL_ATTRIBUTE, email);
+        record(authenticateTimer, authenticateStart);
+        // Time spent in this filter only, without the rest of the request
+        record(authenticatedTimer, start);
 
         // STEP 8: Pass request to next filter/controller
         filterChain.doFilter(request,response);
     }
+
+    // Records the time since start (System.nanoTime()) on the timer, if there is one
+    private static void record(Timer timer, long start) {
+        if (timer != null) timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package org.example;
+
+import java.time.Instant;
+
+/**
+ * JwtClaims - The verified contents of a JWT token
+ *
+ * Only created after the signature and expiration were checked,
+ * so everything in here can be trusted.
+ */
+public record JwtClaims(String email, String role, Instant expiresAt) {
+}
@@ -1,10 +1,26 @@
 package org.example;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
 
 /**
  * Utility class for managing JWT tokens
@@ -16,6 +32,41 @@ public class JwtUtil {
     @Value("${jwt.secret}")
     private String SECRET_KEY;
 
+    // Cache of already verified tokens - a client sends the same token on every request
+    @Value("${jwt.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    // Built once at startup instead of on every call
+    private Key signingKey;
+    private JwtParser parser;
+
+    // SHA-256 digest of the token -> its verified claims, each entry expires with its token
+    private Cache<String, JwtClaims> verifiedClaims;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+        parser = Jwts.parserBuilder()  // Creates a parser for reading tokens
+                .setSigningKey(signingKey)  // Sets the key for signature verification
+                .build();  // Builds the parser - it is thread-safe, so one is enough
+
+        if (cacheEnabled) {
+            verifiedClaims = Caffeine.newBuilder()
+                    .maximumSize(cacheMaxSize)
+                    .expireAfter(new TokenExpiry())
+                    .recordStats()
+                    .build();
+            // Publishes cache.gets (hit/miss), cache.size, cache.evictions tagged cache=jwt.claims
+            if (meterRegistry != null) CaffeineCacheMetrics.monitor(meterRegistry, verifiedClaims, "jwt.claims");
+        }
+    }
+
     /**
      * Generates a new JWT token for a user
      * @param email - the user's email
@@ -28,37 +79,81 @@ public class JwtUtil {
                 .setIssuedAt(new Date())  // Token creation time (now)
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10))
                 // Expiration time: now + 10 hours (1000ms * 60s * 60min * 10h)
-                .signWith(Keys
-                        .hmacShaKeyFor(
-                                SECRET_KEY.getBytes()))
-                // Signs the token with the secret key:
-                // 1. SECRET_KEY.getBytes() - converts String to bytes
-                // 2. Keys.hmacShaKeyFor() - creates Key object from bytes
-                // 3. signWith() - signs with the Key
+                .signWith(signingKey)  // Signs the token with the secret key
                 .compact();  // Builds the final token as String
         return token;
     }
 
+    /**
+     * Verifies a token once and returns everything we need from it
+     *
+     * Checks the signature and expiration a single time (instead of once per extracted field).
+     * Tokens seen before are answered from the cache without verifying the signature again.
+     *
+     * @param token - the token to verify
+     * @return the verified claims, or empty if the token is invalid or expired
+     */
+    public Optional<JwtClaims> verify(String token) {
+        if (verifiedClaims == null) return Optional.ofNullable(parse(token));
+
+        String digest = digest(token);
+        JwtClaims cached = verifiedClaims.getIfPresent(digest);
+        // The cache drops entries at expiry, the check covers the moment in between
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) return Optional.of(cached);
+
+        JwtClaims claims = parse(token);
+        // Only valid tokens are cached, so garbage tokens cannot flood the cache
+        if (claims != null && claims.expiresAt() != null) verifiedClaims.put(digest, claims);
+        return Optional.ofNullable(claims);
+    }
+
+    // Full signature + expiration check, returns null if the token is invalid
+    private JwtClaims parse(String token) {
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            Date expiration = claims.getExpiration();
+            return new JwtClaims(claims.getSubject(), claims.get("role", String.class),
+                    expiration == null ? null : expiration.toInstant());
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;  // If exception was thrown - token is invalid
+        }
+    }
+
+    // The cache is keyed by a digest so raw bearer tokens are not kept in memory
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Each cache entry lives exactly as long as its token is valid
+    private static class TokenExpiry implements Expiry<String, JwtClaims> {
+        @Override
+        public long expireAfterCreate(String digest, JwtClaims claims, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), claims.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, JwtClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, JwtClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
     /**
      * Validates if a JWT token is valid
      * @param token - the token to validate
      * @return true if valid, false if not
      */
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()  // Creates a parser for reading tokens
-                    .setSigningKey(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))
-                    // Sets the key for signature verification
-                    .build()  // Builds the parser - ready to use
-                    .parseClaimsJws(token);
-            // Parses and validates the token:
-            // - Checks if signature is correct
-            // - Checks if token hasn't expired
-            // - Throws Exception if something is invalid
-            return true;  // If we got here - no exception, token is valid
-        } catch (Exception e) {
-            return false;  // If exception was thrown - token is invalid
-        }
+        return verify(token).isPresent();
     }
 
     /**
@@ -67,26 +162,12 @@ public class JwtUtil {
      * @return the user's email
      */
     public String extractEmail(String token) {
-        Jws<Claims> claimsJws = Jwts.parserBuilder()  // Creates parser
-                .setSigningKey(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))  // Sets key
-                .build()  // Builds parser
-                .parseClaimsJws(token);  // Parses token and returns object with data
-
-        // claimsJws.getBody() - extracts the Claims (data) from token
         // claims.getSubject() - extracts the subject (the email we saved)
-        String email = claimsJws.getBody().getSubject();
-        return email;
+        return parser.parseClaimsJws(token).getBody().getSubject();
     }
 
     public String extractRole(String token) {
-        Jws<Claims> claimsJwts = Jwts.parserBuilder() // Creates parser
-                .setSigningKey(Keys.hmacShaKeyFor(SECRET_KEY.getBytes())) // Sets key
-                .build()  // Builds parser
-                .parseClaimsJws(token); // Parses token and returns object with data
-
-        // claimsJws.getBody() - extracts the Claims (data) from token
         // claims.get - extracts the role
-        String role = claimsJwts.getBody().get("role",String.class);
-        return role;
+        return parser.parseClaimsJws(token).getBody().get("role",String.class);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,52 @@
+package org.example;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JwtAuthenticationFilter for the reactive stack - the same rules:
+ * /auth/login and /auth/register are skipped, requests without a Bearer token go on anonymous,
+ * an invalid token is answered with 401 "Invalid token" right here, a valid one authenticates
+ * the request with the role from the token
+ *
+ * Not a bean - ReactiveSecurityConfig puts it into the security chain (a WebFilter bean would run twice)
+ */
+public class JwtWebFilter implements WebFilter {
+    private final JwtUtil jwtUtil;
+
+    public JwtWebFilter(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String requestPath = exchange.getRequest().getPath().value();
+        if (requestPath.equals("/auth/login") || requestPath.equals("/auth/register")) return chain.filter(exchange);
+
+        String authHeader = exchange.getRequest().getHeaders().getFirst("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) return chain.filter(exchange);
+
+        // Signature + expiration, cached per token like on the servlet stack
+        Optional<JwtClaims> claims = jwtUtil.verify(authHeader.substring(7));
+        if (claims.isEmpty()) {
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap("Invalid token".getBytes(StandardCharsets.UTF_8))));
+        }
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                claims.get().email(), null, List.of(new SimpleGrantedAuthority("ROLE_" + claims.get().role())));
+        return chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+    }
+}
@@ -0,0 +1,212 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles POST /auth/login per client IP and per email before the request reaches
+ * the database or BCrypt, so a credential stuffing burst cannot pin the hashing pool
+ *
+ * Both limits are token buckets (RateLimiter). The IP is checked first, without reading the body;
+ * the email comes from the (small) JSON body, which is kept for the controller.
+ * Rejected attempts get 429 with Retry-After and count in auth.login.throttled{key=ip|email}.
+ * The IP is request.getRemoteAddr() - behind a proxy set server.forward-headers-strategy
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Component
+public class LoginThrottleFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(LoginThrottleFilter.class);
+    // Login bodies are an email and a password - anything bigger is not a login attempt
+    private static final int MAX_BODY_BYTES = 4096;
+    // Matches the decoded path like the controller mapping does - /auth/%6Cogin is a login too
+    private static final RequestMatcher LOGIN = new AntPathRequestMatcher("/auth/login", "POST");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${security.login-throttle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.login-throttle.per-ip:20}")
+    private int perIp;
+
+    @Value("${security.login-throttle.per-email:5}")
+    private int perEmail;
+
+    @Value("${security.login-throttle.period:1m}")
+    private Duration period;
+
+    // Keys tracked per limiter - bounds the memory an attack with many IPs / emails can take
+    @Value("${security.login-throttle.max-keys:100000}")
+    private long maxKeys;
+
+    private RateLimiter ipLimiter;
+    private RateLimiter emailLimiter;
+    private Counter ipRejected;
+    private Counter emailRejected;
+
+    @PostConstruct
+    void init() {
+        ipLimiter = new RateLimiter(perIp, period, maxKeys);
+        emailLimiter = new RateLimiter(perEmail, period, maxKeys);
+        if (meterRegistry != null) {
+            ipRejected = Counter.builder("auth.login.throttled").tag("key", "ip")
+                    .description("Login attempts rejected by the per-IP limit")
+                    .register(meterRegistry);
+            emailRejected = Counter.builder("auth.login.throttled").tag("key", "email")
+                    .description("Login attempts rejected by the per-email limit")
+                    .register(meterRegistry);
+            Gauge.builder("auth.login.throttle.keys", ipLimiter, RateLimiter::size).tag("key", "ip")
+                    .description("Client IPs with a login bucket").register(meterRegistry);
+            Gauge.builder("auth.login.throttle.keys", emailLimiter, RateLimiter::size).tag("key", "email")
+                    .description("Emails with a login bucket").register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !LOGIN.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long wait = ipLimiter.tryAcquire(request.getRemoteAddr());
+        if (wait > 0) {
+            reject(response, ipRejected, wait);
+            return;
+        }
+
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            response.setStatus(413);
+            response.getWriter().write("Login request too large");
+            return;
+        }
+        String email = email(body);
+        if (email != null) {
+            wait = emailLimiter.tryAcquire(email);
+            if (wait > 0) {
+                logger.debug("Login attempts for {} throttled", email);
+                reject(response, emailRejected, wait);
+                return;
+            }
+        }
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    // The normalized email of the login body, null when there is none - the controller answers those
+    private String email(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).path("email");
+            return email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, Counter counter, long waitNanos) throws IOException {
+        if (counter != null) counter.increment();
+        // Whole seconds, rounded up
+        response.setHeader("Retry-After", Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+        response.setStatus(429);
+        response.getWriter().write("Too many login attempts, try again later");
+    }
+
+    // Serves the already read body again to the rest of the chain
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The body is already in memory - all of it is available right away
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.example;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Password encoding - shared by the servlet and the reactive stack (SecurityConfig is servlet only)
+ */
+@Configuration
+public class PasswordEncoderConfig {
+
+    /**
+     * Password Encoder Bean
+     *
+     * Defines how passwords are encrypted/hashed in the application
+     * BCrypt is a strong one-way hashing algorithm that:
+     * - Automatically generates salt for each password
+     * - Is computationally expensive to crack
+     * - Is the industry standard for password hashing
+     *
+     * The cost (security.bcrypt.strength) is configurable - existing hashes with another cost
+     * are replaced on the next successful login (see PasswordHasher.needsRehash)
+     * Request code should go through PasswordHasher, which runs the encoder on its own thread pool
+     *
+     * @return PasswordEncoder - BCrypt password encoder
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
+    }
+}
@@ -0,0 +1,204 @@
+package org.example;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs password hashing and verification on its own bounded thread pool
+ *
+ * BCrypt is deliberately slow, so a login spike would take every core and starve every other endpoint.
+ * Here at most security.hashing.threads hashes run at once and at most security.hashing.queue-capacity wait -
+ * anything beyond that fails fast with PasswordHashingUnavailableException (503) instead of piling up
+ *
+ * Results come back as CompletableFutures, so the request thread is free while a hash waits or runs
+ * (the controllers return the future). A hash not done within security.hashing.timeout fails
+ * with PasswordHashingUnavailableException as well
+ */
+@Component
+public class PasswordHasher {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${security.bcrypt.strength:10}")
+    private int strength;
+
+    @Value("${security.hashing.threads:0}")
+    private int threads;
+
+    @Value("${security.hashing.queue-capacity:100}")
+    private int queueCapacity;
+
+    // Upper bound for waiting in the queue plus hashing
+    @Value("${security.hashing.timeout:5s}")
+    private Duration timeout;
+
+    private ThreadPoolExecutor executor;
+    // Fails the hashes that are not done within the timeout
+    private ScheduledExecutorService timeouts;
+    private Timer waitTimer;
+    private Counter rejected;
+    // password.hash by operation and outcome, registered once
+    private Timer encodeSuccessTimer;
+    private Timer encodeErrorTimer;
+    private Timer matchTimer;
+    private Timer mismatchTimer;
+    private Timer matchesErrorTimer;
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "password-hash-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Nearly every hash finishes in time - drop its timeout task right away instead of keeping it queued
+        scheduler.setRemoveOnCancelPolicy(true);
+        timeouts = scheduler;
+
+        if (meterRegistry != null) {
+            waitTimer = Timer.builder("password.hash.wait")
+                    .description("Time a hash request waited in the queue for a thread")
+                    .register(meterRegistry);
+            encodeSuccessTimer = hashTimer("encode", "success");
+            encodeErrorTimer = hashTimer("encode", "error");
+            matchTimer = hashTimer("matches", "match");
+            mismatchTimer = hashTimer("matches", "mismatch");
+            matchesErrorTimer = hashTimer("matches", "error");
+            rejected = Counter.builder("password.hash.rejected")
+                    .description("Hash requests turned away because the pool was saturated")
+                    .register(meterRegistry);
+            Gauge.builder("password.hash.queue.size", executor, e -> e.getQueue().size())
+                    .description("Hash requests waiting for a thread")
+                    .register(meterRegistry);
+            Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                    .description("Hashes running right now")
+                    .register(meterRegistry);
+        }
+        logger.info("Password hashing pool: {} threads, queue of {}, BCrypt strength {}", poolSize, queueCapacity, strength);
+    }
+
+    private Timer hashTimer(String operation, String outcome) {
+        return Timer.builder("password.hash")
+                .description("Time spent hashing or verifying a password (without queueing)")
+                .tags("operation", operation, "outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timeouts.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /** Hashes a raw password with the configured BCrypt strength */
+    public CompletableFuture<String> encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword), hash -> encodeSuccessTimer, encodeErrorTimer);
+    }
+
+    /** Checks a raw password against a stored hash */
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword),
+                match -> match ? matchTimer : mismatchTimer, matchesErrorTimer);
+    }
+
+    /**
+     * True when the hash was made with another BCrypt cost than the configured one,
+     * so it should be replaced after the next successful login
+     */
+    public boolean needsRehash(String encodedPassword) {
+        // BCrypt hashes look like $2a$10$..., the number is the cost
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(3) != '$') return false;
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) != strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // Runs the task and records the time spent hashing on the password.hash timer the outcome function picks
+    // for the result (operation encode|matches, outcome success|match|mismatch), errorTimer when it throws
+    private <T> T timed(Callable<T> task, Function<T, Timer> outcome, Timer errorTimer, long submitted) throws Exception {
+        if (meterRegistry == null) return task.call();
+        long start = System.nanoTime();
+        waitTimer.record(start - submitted, TimeUnit.NANOSECONDS);
+        Timer timer = errorTimer;
+        try {
+            T value = task.call();
+            timer = outcome.apply(value);
+            return value;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Queues the task and returns right away - the future fails with PasswordHashingUnavailableException
+    // when the pool turns the task away or the timeout passes first
+    private <T> CompletableFuture<T> run(Callable<T> task, Function<T, Timer> outcome, Timer errorTimer) {
+        long submitted = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> hashing;
+        try {
+            hashing = executor.submit(() -> {
+                try {
+                    result.complete(timed(task, outcome, errorTimer, submitted));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                } catch (Exception e) {
+                    result.completeExceptionally(new IllegalStateException("Password hashing failed", e));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (rejected != null) rejected.increment();
+            logger.warn("Password hashing pool is saturated, request rejected");
+            return CompletableFuture.failedFuture(new PasswordHashingUnavailableException("Too many login requests, try again later"));
+        }
+        ScheduledFuture<?> deadline = timeouts.schedule(() -> {
+            if (result.completeExceptionally(new PasswordHashingUnavailableException("Password hashing timed out, try again later"))) {
+                // Still queued - it never runs. Already hashing - the result is dropped
+                hashing.cancel(true);
+                if (rejected != null) rejected.increment();
+            }
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        result.whenComplete((value, error) -> deadline.cancel(false));
+        return result;
+    }
+}
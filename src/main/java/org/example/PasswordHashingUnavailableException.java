@@ -0,0 +1,11 @@
+package org.example;
+
+/**
+ * Thrown when the password hashing pool is saturated (or a hash takes too long)
+ * Mapped to 503 Service Unavailable by GlobalExceptionHandler
+ */
+public class PasswordHashingUnavailableException extends RuntimeException {
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+package org.example;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Base for DataSources that a BeanPostProcessor puts in place of the connection pool
+ *
+ * The wrapper becomes the DataSource bean, so Spring calls its close() on shutdown -
+ * it is passed on to the pool underneath
+ */
+public abstract class PoolWrappingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    protected PoolWrappingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable pool) pool.close();
+    }
+}
@@ -1,21 +1,42 @@
 package org.example;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "posts")
 public class Post {
+    // Sequence ids (fetched 50 at a time) instead of IDENTITY - Hibernate has to run an IDENTITY
+    // insert right away to learn the id, which rules out JDBC insert batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "posts_seq")
+    @SequenceGenerator(name = "posts_seq", sequenceName = "posts_seq", allocationSize = 50)
     private Long id;
 
     private String title;
     private String content;
+    @Column(nullable = false)
     private LocalDateTime createdDate;
 
-    @ManyToOne
+    // Bumped by Hibernate on every update - together with lastModifiedDate it makes the ETags
+    // of the post listings and of GET /posts/{id} (no body hashing needed)
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime lastModifiedDate;
+
+    // Position in the change feed (PostChangeLog) - set by every write, clients see it as the sync token
+    @JsonIgnore
+    private long changeSeq;
+
+    // LAZY - the owner is never serialized with the post (@JsonBackReference),
+    // so there is no reason to load it for every post we read
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     @JsonBackReference
     private User user;
@@ -29,6 +50,19 @@ public class Post {
         this.createdDate = LocalDateTime.now();
     }
 
+    // Posts created from JSON go through the no-arg constructor,
+    // so make sure every stored post has a createdDate (pagination is keyed on it)
+    @PrePersist
+    void onCreate() {
+        if (createdDate == null) createdDate = LocalDateTime.now();
+        lastModifiedDate = createdDate;
+    }
+
+    @PreUpdate
+    void onUpdate() {
+        lastModifiedDate = LocalDateTime.now();
+    }
+
     public Long getId() {
         return id;
     }
@@ -57,6 +91,21 @@ public class Post {
         this.createdDate = createdDate;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getLastModifiedDate() {
+        return lastModifiedDate;
+    }
+
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+    public void setChangeSeq(long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
     public User getUser() {
         return user;
     }
@@ -0,0 +1,21 @@
+package org.example;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one item of a batch post creation, in the order of the request
+ * Created items carry the new post id, rejected items the reason
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PostBatchResult(int index, String status, Long id, String error) {
+    static final String CREATED = "CREATED";
+    static final String REJECTED = "REJECTED";
+
+    static PostBatchResult created(int index, Long id) {
+        return new PostBatchResult(index, CREATED, id, null);
+    }
+
+    static PostBatchResult rejected(int index, String error) {
+        return new PostBatchResult(index, REJECTED, null, error);
+    }
+}
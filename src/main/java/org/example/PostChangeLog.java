@@ -0,0 +1,94 @@
+package org.example;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Change feed of the posts - backs GET /posts/changes
+ *
+ * Every created / updated post is stamped with the next change number (posts.change_seq),
+ * every deleted post leaves a tombstone with one. A client keeps the highest number it has seen
+ * and asks for everything above it, so a sync only reads what changed.
+ *
+ * The numbers come from the single post_change_seq row. Its row lock is held until the writing
+ * transaction commits, so numbers become visible in order - a reader never sees number n+1
+ * while n is still uncommitted and could be skipped.
+ *
+ * The row also keeps the time of the last write - last_seq and last_modified are the version
+ * of the all-posts listing (PostListVersions)
+ */
+@Component
+public class PostChangeLog {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    /**
+     * Takes the next count change numbers - must run in the transaction that writes the posts
+     * @return the first of the numbers, the others follow it
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long allocate(int count) {
+        jdbcTemplate.update("UPDATE post_change_seq SET last_seq = last_seq + ?, last_modified = ?", count, LocalDateTime.now());
+        Long last = jdbcTemplate.queryForObject("SELECT last_seq FROM post_change_seq", Long.class);
+        return last - count + 1;
+    }
+
+    /** The last change number handed out - every change up to it is committed or still being written */
+    public long lastChangeSeq() {
+        return jdbcTemplate.queryForObject("SELECT last_seq FROM post_change_seq", Long.class);
+    }
+
+    /**
+     * Leaves a tombstone for each deleted post - must run in the transaction that deletes them
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleted(Long userId, List<Long> postIds) {
+        if (postIds.isEmpty()) return;
+        long changeSeq = allocate(postIds.size());
+        List<Object[]> rows = new ArrayList<>(postIds.size());
+        for (Long postId : postIds) rows.add(new Object[]{postId, userId, changeSeq++});
+        jdbcTemplate.batchUpdate("INSERT INTO post_tombstones (post_id, user_id, change_seq) VALUES (?, ?, ?)", rows);
+    }
+
+    /**
+     * Up to limit changes after the given change number, oldest first
+     * A post that changed several times shows up once, with its current state
+     */
+    @Transactional(readOnly = true)
+    public PostChanges changesSince(long since, int limit) {
+        List<Post> posts = postRepository.findChangedAfter(since, Limit.of(limit + 1));
+        List<long[]> tombstones = jdbcTemplate.query(
+                "SELECT post_id, change_seq FROM post_tombstones WHERE change_seq > ? ORDER BY change_seq LIMIT ?",
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, since, limit + 1);
+
+        // Merge both lists by change number and cut after limit changes
+        List<Post> upserted = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        long last = since;
+        int p = 0;
+        int t = 0;
+        while (upserted.size() + deleted.size() < limit && (p < posts.size() || t < tombstones.size())) {
+            if (t == tombstones.size() || (p < posts.size() && posts.get(p).getChangeSeq() < tombstones.get(t)[1])) {
+                last = posts.get(p).getChangeSeq();
+                upserted.add(posts.get(p++));
+            } else {
+                last = tombstones.get(t)[1];
+                deleted.add(tombstones.get(t++)[0]);
+            }
+        }
+        boolean hasMore = p < posts.size() || t < tombstones.size();
+        return new PostChanges(upserted, deleted, new PostChangeToken(last).encode(), hasMore);
+    }
+}
@@ -0,0 +1,36 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * PostChangeToken - Opaque sync token for GET /posts/changes
+ *
+ * Holds the change number of the last change the client has seen,
+ * the next sync returns everything with a higher number
+ */
+public record PostChangeToken(long changeSeq) {
+    private static final String PREFIX = "c";
+
+    public String encode() {
+        String raw = PREFIX + changeSeq;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token previously returned by encode()
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static PostChangeToken decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) throw new IllegalArgumentException("Invalid sync token");
+            long changeSeq = Long.parseLong(raw.substring(PREFIX.length()));
+            if (changeSeq < 0) throw new IllegalArgumentException("Invalid sync token");
+            return new PostChangeToken(changeSeq);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid sync token", e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.example;
+
+import java.util.List;
+
+/**
+ * One page of GET /posts/changes
+ * Apply upserted first, then deleted. Send nextToken back as "since" - while hasMore is true
+ * there are more changes right away, otherwise it is the token for the next sync
+ */
+public record PostChanges(List<Post> upserted, List<Long> deleted, String nextToken, boolean hasMore) {}
@@ -3,27 +3,87 @@ package org.example;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+// Servlet stack only - the "reactive" profile serves the public post reads from ReactivePostController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RestController
 public class PostController {
     private static final Logger logger = LoggerFactory.getLogger(PostController.class);
+    // Columns /posts/query can sort by - each one leads an index, ties are broken by id
+    private static final Set<String> QUERY_SORT_PROPERTIES = Set.of("createdDate", "title", "id");
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    @Value("${posts.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${posts.page.max-size:100}")
+    private int maxPageSize;
+
     @Autowired
     private PostRepository postRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+
+    @Autowired
+    private PostResponseCache postResponseCache;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostListVersions postListVersions;
+
+    @Autowired
+    private UserPostStatsService userPostStatsService;
+
+    @Autowired
+    private PostChangeLog postChangeLog;
+
+    @Autowired
+    private PostFeed postFeed;
+
+    @Value("${posts.batch.max-items:1000}")
+    private int maxBatchItems;
+
     @PreAuthorize("isAuthenticated()")  // Must be logged in to create posts
     @PostMapping("/users/{userId}/posts")
     public ResponseEntity<?> newPost(@PathVariable Long userId, @RequestBody Post post, Authentication authentication) {
-        logger.info("Creating new post: {} \n by user with ID: {}", post.getTitle(), userId);
+        logger.debug("Creating new post: {} \n by user with ID: {}", post.getTitle(), userId);
         Optional<User> optionalUser = userRepository.findById(userId);
         if (optionalUser.isEmpty()) {
             logger.warn("User with ID: {} not found, post creation failed", userId);
@@ -35,36 +95,322 @@ public class PostController {
             logger.warn("User {} attempted to create post for user ID: {} without authorization", authentication.getName(), userId);
             return ResponseEntity.status(403).body("You can only create posts for yourself");
         }
-        post.setUser(user);
-        Post savedPost = postRepository.save(post);
-        logger.info("Post '{}' created successfully by user with ID: {}", savedPost.getTitle(), userId);
+        Post savedPost = postService.create(user, post);
+        postSearchIndex.index(savedPost);
+        postResponseCache.invalidateAll();
+        postFeed.publish(savedPost);
+        logger.debug("Post '{}' created successfully by user with ID: {}", savedPost.getTitle(), userId);
         return ResponseEntity.ok(savedPost);
     }
 
+    /**
+     * Creates many posts for one user in a single request
+     * The user is looked up and authorized once, the posts are inserted in JDBC batches
+     * Invalid posts are rejected one by one - the response has a result for every post, in request order
+     */
+    @PreAuthorize("isAuthenticated()")  // Must be logged in to create posts
+    @PostMapping("/users/{userId}/posts/batch")
+    public ResponseEntity<?> newPosts(@PathVariable Long userId, @RequestBody List<Post> posts, Authentication authentication) {
+        logger.debug("Creating {} posts in a batch for user with ID: {}", posts.size(), userId);
+        if (posts.isEmpty() || posts.size() > maxBatchItems) {
+            return ResponseEntity.badRequest().body("A batch must contain between 1 and " + maxBatchItems + " posts");
+        }
+        Optional<User> optionalUser = userRepository.findById(userId);
+        if (optionalUser.isEmpty()) {
+            logger.warn("User with ID: {} not found, batch post creation failed", userId);
+            return ResponseEntity.notFound().build();
+        }
+        User user = optionalUser.get();
+
+        if (!AuthUtil.isAdminOrOwner(authentication, user.getEmail())) {
+            logger.warn("User {} attempted to create posts for user ID: {} without authorization", authentication.getName(), userId);
+            return ResponseEntity.status(403).body("You can only create posts for yourself");
+        }
+        List<PostBatchResult> results = postService.createAll(user, posts);
 
+        // Only runs once the transaction has committed
+        int created = 0;
+        for (PostBatchResult result : results) {
+            if (!PostBatchResult.CREATED.equals(result.status())) continue;
+            postSearchIndex.index(posts.get(result.index()));
+            postFeed.publish(posts.get(result.index()));
+            created++;
+        }
+        if (created > 0) postResponseCache.invalidateAll();
+        logger.debug("Batch for user ID: {} finished, {} of {} posts created", userId, created, posts.size());
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * Post count and first / last post date of one user
+     * Read from counters maintained on every post creation - the posts themselves are not loaded
+     */
+    @GetMapping("/users/{userId}/stats")
+    public ResponseEntity<UserPostStats> userStats(@PathVariable Long userId){
+        return ResponseEntity.of(userPostStatsService.get(userId));
+    }
+
+    /**
+     * Returns one page of the user's posts, oldest first
+     * Pass the X-Next-Cursor header of the previous response as "cursor" to get the next page
+     * Answers 304 Not Modified to If-None-Match / If-Modified-Since when the user's posts did not change
+     */
     @GetMapping("/users/{userId}/posts")
-    public ResponseEntity<List<Post>> userAllPosts(@PathVariable Long userId){
-        Optional<User> optionalUser = userRepository.findById(userId);
-        if (optionalUser.isPresent()){
-            return ResponseEntity.ok(optionalUser.get().getPosts());
+    public ResponseEntity<?> userAllPosts(@PathVariable Long userId,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer limit,
+                                          WebRequest webRequest){
+        String key = "/users/" + userId + "/posts?cursor=" + cursor + "&limit=" + limit;
+        PostListVersion version = postListVersions.ofUser(userId);
+        String etag = version.etag(key);
+        // Sets ETag / Last-Modified, and on a match the 304 goes out without loading or serializing anything
+        if (webRequest.checkNotModified(etag, version.lastModifiedMillis())) return null;
+        // Served from the response cache, the loader below only runs on a miss or refresh
+        // The ETag is part of the key, so a cached body always matches the ETag sent with it
+        return postResponseCache.get(key + "&etag=" + etag, () -> loadUserPosts(userId, cursor, limit));
+    }
+
+    private ResponseEntity<List<Post>> loadUserPosts(Long userId, String cursor, Integer limit){
+        if (!userRepository.existsById(userId)) return ResponseEntity.notFound().build();
+        int pageSize = pageSize(limit);
+        if (pageSize < 1) return ResponseEntity.badRequest().build();
+
+        List<Post> rows;
+        if (cursor == null) {
+            rows = postRepository.findFirstPageByUserId(userId, Limit.of(pageSize + 1));
+        } else {
+            PostCursor after;
+            try {
+                after = PostCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+            rows = postRepository.findPageAfterByUserId(userId, after.createdDate(), after.id(), Limit.of(pageSize + 1));
         }
-        return ResponseEntity.notFound().build();
+        return page(rows, pageSize);
     }
+
+    /**
+     * Returns one page of all posts, oldest first
+     * Pass the X-Next-Cursor header of the previous response as "cursor" to get the next page
+     * Answers 304 Not Modified to If-None-Match / If-Modified-Since when no post changed
+     */
     @GetMapping("/posts")
-    public ResponseEntity<List<Post>> returnAllPost(){
-        List<Post> allPost = postRepository.findAll();
-        return ResponseEntity.ok(allPost);
+    public ResponseEntity<?> returnAllPost(@RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) Integer limit,
+                                           WebRequest webRequest){
+        String key = "/posts?cursor=" + cursor + "&limit=" + limit;
+        PostListVersion version = postListVersions.all();
+        String etag = version.etag(key);
+        if (webRequest.checkNotModified(etag, version.lastModifiedMillis())) return null;
+        return postResponseCache.get(key + "&etag=" + etag, () -> loadAllPosts(cursor, limit));
     }
+
+    /**
+     * Live feed of new posts as Server-Sent Events (event "post", id = change number)
+     * Reconnecting clients send Last-Event-ID and get the posts they missed first
+     */
+    @GetMapping(value = "/posts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamPosts(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId){
+        return subscribe(null, lastEventId);
+    }
+
+    /** Live feed of the new posts of one user, see streamPosts */
+    @GetMapping(value = "/users/{userId}/posts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamUserPosts(@PathVariable Long userId,
+                                                      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId){
+        if (!userRepository.existsById(userId)) return ResponseEntity.notFound().build();
+        return subscribe(userId, lastEventId);
+    }
+
+    private ResponseEntity<SseEmitter> subscribe(Long userId, String lastEventId){
+        Long resumeAfter;
+        try {
+            resumeAfter = lastEventId == null ? null : Long.valueOf(lastEventId);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        SseEmitter emitter = postFeed.subscribe(userId, resumeAfter);
+        if (emitter == null) {
+            logger.warn("Live feed is full, rejecting subscriber");
+            return ResponseEntity.status(503).header("Retry-After", "5").build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Posts created, updated or deleted since the sync token, oldest change first, at most "limit" changes
+     * Without "since" the first sync returns every post. Send nextToken back as "since" for the next page / sync
+     */
+    @GetMapping("/posts/changes")
+    public ResponseEntity<PostChanges> postChanges(@RequestParam(required = false) String since,
+                                                   @RequestParam(required = false) Integer limit){
+        int pageSize = pageSize(limit);
+        if (pageSize < 1) return ResponseEntity.badRequest().build();
+        long after;
+        try {
+            after = since == null ? 0 : PostChangeToken.decode(since).changeSeq();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(postChangeLog.changesSince(after, pageSize));
+    }
+
+    /**
+     * Returns one post
+     * The ETag comes from the post id and version, a matching If-None-Match gets 304 without a body
+     */
+    @GetMapping("/posts/{id:\\d+}")
+    public ResponseEntity<Post> getPost(@PathVariable Long id, WebRequest webRequest){
+        Optional<Post> post = postRepository.findById(id);
+        if (post.isEmpty()) return ResponseEntity.notFound().build();
+        String etag = "\"" + id + "-" + post.get().getVersion() + "\"";
+        long lastModified = post.get().getLastModifiedDate() == null ? -1
+                : post.get().getLastModifiedDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (webRequest.checkNotModified(etag, lastModified)) return null;
+        return ResponseEntity.ok(post.get());
+    }
+
+    private ResponseEntity<List<Post>> loadAllPosts(String cursor, Integer limit){
+        int pageSize = pageSize(limit);
+        if (pageSize < 1) return ResponseEntity.badRequest().build();
+
+        List<Post> rows;
+        if (cursor == null) {
+            rows = postRepository.findFirstPage(Limit.of(pageSize + 1));
+        } else {
+            PostCursor after;
+            try {
+                after = PostCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+            rows = postRepository.findPageAfter(after.createdDate(), after.id(), Limit.of(pageSize + 1));
+        }
+        return page(rows, pageSize);
+    }
+
+    /**
+     * Exports every post as newline-delimited JSON (one post per line)
+     * Rows are streamed from the database, so memory use does not depend on the table size
+     */
+    @PreAuthorize("hasRole('ADMIN')")  // Only ADMIN can pull full exports
+    @Transactional(readOnly = true)    // Keeps the database cursor open while we stream
+    @GetMapping("/posts/export")
+    public void exportPosts(HttpServletResponse response) throws IOException {
+        try (Stream<Post> posts = postRepository.streamAll()) {
+            long count = ndjsonExporter.export(posts, post -> post, response);
+            logger.info("Exported {} posts", count);
+        }
+    }
+
     @GetMapping("/posts/title/{title}")
-    public ResponseEntity<List<Post>> findByTitle(@PathVariable String title){
+    public ResponseEntity<?> findByTitle(@PathVariable String title){
+        return postResponseCache.get("/posts/title/" + title, () -> loadByTitle(title));
+    }
+
+    private ResponseEntity<List<Post>> loadByTitle(String title){
         List<Post> posts = postRepository.findByTitle(title);
         if (posts.isEmpty())return ResponseEntity.notFound().build();
         return ResponseEntity.ok(posts);
     }
+
+    /**
+     * Full-text search over post titles and content, best matches first
+     * Served from the in-memory search index, falls back to a title scan
+     * while the index is still being built after startup
+     */
     @GetMapping("/posts/search/{keyword}")
-    public ResponseEntity<List<Post>> findByTitleContaining(@PathVariable String keyword){
-        List<Post> posts = postRepository.findByTitleContaining(keyword);
+    public ResponseEntity<List<Post>> searchPosts(@PathVariable String keyword,
+                                                  @RequestParam(defaultValue = "0") int page,
+                                                  @RequestParam(required = false) Integer limit){
+        int pageSize = pageSize(limit);
+        if (pageSize < 1 || page < 0) return ResponseEntity.badRequest().build();
+
+        List<Post> posts;
+        if (postSearchIndex.isReady()) {
+            List<Long> ids = postSearchIndex.search(keyword, page, pageSize);
+            posts = findAllInOrder(ids);
+        } else {
+            posts = postRepository.findByTitleContaining(keyword, PageRequest.of(page, pageSize));
+        }
         if (posts.isEmpty())return ResponseEntity.notFound().build();
         return ResponseEntity.ok(posts);
     }
+
+    /**
+     * Posts filtered by any combination of author, exact title, title keyword and creation date range,
+     * sorted by "sort" (createdDate, title or id, optionally ",desc"; default createdDate ascending)
+     * All filters go into one query; a page reads limit + 1 rows instead of counting the matches -
+     * the total is only counted with count=true
+     */
+    @GetMapping("/posts/query")
+    public ResponseEntity<PostSlice> queryPosts(@RequestParam(required = false) Long userId,
+                                                @RequestParam(required = false) String title,
+                                                @RequestParam(required = false) String keyword,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                @RequestParam(defaultValue = "createdDate") String sort,
+                                                @RequestParam(defaultValue = "0") int page,
+                                                @RequestParam(required = false) Integer limit,
+                                                @RequestParam(defaultValue = "false") boolean count){
+        int pageSize = pageSize(limit);
+        // The offset has to fit the int of setFirstResult
+        if (pageSize < 1 || page < 0 || (long) page * pageSize > Integer.MAX_VALUE) return ResponseEntity.badRequest().build();
+        Sort order = querySort(sort);
+        if (order == null) return ResponseEntity.badRequest().build();
+
+        Specification<Post> spec = new PostQuery(userId, title, keyword, from, to).toSpecification();
+        Slice<Post> slice = postRepository.findSlice(spec, PageRequest.of(page, pageSize, order));
+        Long total = null;
+        if (count) {
+            // On the last page the total is known without counting
+            total = slice.hasNext() || (slice.isEmpty() && page > 0)
+                    ? postRepository.count(spec)
+                    : slice.getPageable().getOffset() + slice.getNumberOfElements();
+        }
+        return ResponseEntity.ok(new PostSlice(slice.getContent(), page, pageSize, slice.hasNext(), total));
+    }
+
+    // "property" or "property,asc|desc" with a whitelisted property, null when invalid
+    private static Sort querySort(String sort) {
+        String[] parts = sort.split(",", -1);
+        if (parts.length > 2 || !QUERY_SORT_PROPERTIES.contains(parts[0])) return null;
+        Sort.Direction direction = Sort.Direction.ASC;
+        if (parts.length == 2) {
+            Optional<Sort.Direction> parsed = Sort.Direction.fromOptionalString(parts[1]);
+            if (parsed.isEmpty()) return null;
+            direction = parsed.get();
+        }
+        // The id makes the order total, so rows with equal values do not move between pages
+        Sort order = Sort.by(direction, parts[0]);
+        return parts[0].equals("id") ? order : order.and(Sort.by(direction, "id"));
+    }
+
+    // Requested page size, capped at the configured maximum (values below 1 are rejected by the caller)
+    private int pageSize(Integer limit) {
+        if (limit == null) return defaultPageSize;
+        return Math.min(limit, maxPageSize);
+    }
+
+    // The queries fetch one extra row - if it is there, another page exists
+    // and the cursor of the last returned post is sent in the X-Next-Cursor header
+    private ResponseEntity<List<Post>> page(List<Post> rows, int pageSize) {
+        if (rows.size() <= pageSize) return ResponseEntity.ok(rows);
+        List<Post> page = rows.subList(0, pageSize);
+        String nextCursor = PostCursor.of(page.get(pageSize - 1)).encode();
+        return ResponseEntity.ok().header(NEXT_CURSOR_HEADER, nextCursor).body(page);
+    }
+
+    // Loads posts by id in one query and keeps the order of the ids (e.g. search rank)
+    private List<Post> findAllInOrder(List<Long> ids) {
+        Map<Long, Post> byId = new HashMap<>();
+        for (Post post : postRepository.findAllById(ids)) byId.put(post.getId(), post);
+        List<Post> posts = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Post post = byId.get(id);
+            if (post != null) posts.add(post); // skip posts deleted since they were indexed
+        }
+        return posts;
+    }
 }
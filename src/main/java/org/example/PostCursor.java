@@ -0,0 +1,63 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * PostCursor - Opaque keyset pagination cursor for post listings
+ *
+ * Points at the last post of a page by its (createdDate, id) pair.
+ * The next page starts right after that pair, so the database can seek
+ * straight to it instead of skipping OFFSET rows.
+ *
+ * The cursor travels to the client as a URL-safe Base64 string,
+ * clients should treat it as opaque and just send it back.
+ */
+public record PostCursor(LocalDateTime createdDate, Long id) {
+
+    // posts.created_date is NOT NULL (migration V5) - a cursor without it could never be decoded
+    // and would not match the keyset predicates either
+    public PostCursor {
+        if (createdDate == null || id == null) throw new IllegalArgumentException("Cursor needs a createdDate and an id");
+    }
+
+    /**
+     * Builds the cursor that points at the given post
+     * @param post - the last post of the current page
+     * @return cursor for the next page
+     */
+    public static PostCursor of(Post post) {
+        return new PostCursor(post.getCreatedDate(), post.getId());
+    }
+
+    /**
+     * Encodes the cursor as an opaque string for the client
+     * @return URL-safe Base64 string
+     */
+    public String encode() {
+        String raw = createdDate + "," + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously returned by encode()
+     * @param cursor - the opaque string sent by the client
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static PostCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(',');
+            if (separator < 0) throw new IllegalArgumentException("Invalid cursor");
+            LocalDateTime createdDate = LocalDateTime.parse(raw.substring(0, separator));
+            Long id = Long.valueOf(raw.substring(separator + 1));
+            return new PostCursor(createdDate, id);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package org.example;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live feed of new posts over Server-Sent Events (GET /posts/stream, GET /users/{userId}/posts/stream)
+ *
+ * - connections are async servlet requests, an idle subscriber holds no thread
+ * - publish() only puts the post into each subscriber's bounded buffer and never blocks the writer;
+ *   a small sender pool drains the buffers, at most one drain per subscriber at a time
+ * - a subscriber whose buffer is full is too slow - it is disconnected and resumes with Last-Event-ID
+ * - a write blocks while the client does not read, so a send that takes longer than send-timeout
+ *   disconnects the subscriber too, and the pool gets a thread in place of the blocked sender
+ * - the event id is the post's change number (PostChangeLog), on reconnect the posts after
+ *   Last-Event-ID are replayed from the database
+ * - a comment line every heartbeat keeps proxies from closing idle connections, sent by the senders as well
+ */
+@Component
+public class PostFeed {
+    private static final Logger logger = LoggerFactory.getLogger(PostFeed.class);
+    static final String EVENT_POST = "post";
+    // Sent when more posts were missed than we replay - the client should catch up with /posts/changes
+    static final String EVENT_RESYNC = "resync";
+    // How long clients wait before reconnecting (the "retry" field)
+    static final long RECONNECT_MILLIS = 3000;
+    // Subscriber.sendDeadline while no send is running / after the running send was given up on
+    private static final long NOT_SENDING = 0;
+    private static final long STALLED = -1;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${posts.feed.max-subscribers:50000}")
+    private int maxSubscribers;
+
+    @Value("${posts.feed.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${posts.feed.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${posts.feed.heartbeat:15s}")
+    private Duration heartbeat;
+
+    // Connections are closed after this long, clients reconnect with Last-Event-ID
+    @Value("${posts.feed.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${posts.feed.replay-max:500}")
+    private int replayMax;
+
+    // A client that does not take one event within this long is disconnected
+    @Value("${posts.feed.send-timeout:10s}")
+    private Duration sendTimeout;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor senders;
+    private ScheduledExecutorService scheduler;
+    private Counter evicted;
+    // Send deadlines are measured from here, so they are always positive
+    private long origin;
+
+    // One connected client - userId null means the global feed
+    final class Subscriber {
+        final SseEmitter emitter;
+        final Long userId;
+        final Queue<Post> buffer;
+        // Set while a sender drains the buffer, so the events of one subscriber go out in order
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        // When the running send has to be done by, NOT_SENDING or STALLED
+        final AtomicLong sendDeadline = new AtomicLong(NOT_SENDING);
+        // Set by the scheduler, the next sender writes the heartbeat
+        volatile boolean heartbeatDue;
+        // Events up to here were already replayed
+        volatile long lastSent;
+
+        Subscriber(SseEmitter emitter, Long userId, long lastSent) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+            this.lastSent = lastSent;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        origin = System.nanoTime();
+        AtomicInteger counter = new AtomicInteger();
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "post-feed-sender-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "post-feed-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sendHeartbeats, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        long checkMillis = Math.max(sendTimeout.toMillis() / 2, 10);
+        scheduler.scheduleWithFixedDelay(this::evictStalled, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+
+        if (meterRegistry != null) {
+            Gauge.builder("posts.feed.subscribers", subscribers, Set::size)
+                    .description("Connected live feed clients")
+                    .register(meterRegistry);
+            evicted = Counter.builder("posts.feed.evicted")
+                    .description("Live feed clients disconnected because they could not keep up")
+                    .register(meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> close(subscriber, null));
+    }
+
+    /**
+     * Opens a feed connection
+     * @param userId only posts of this user, null for all posts
+     * @param lastEventId the Last-Event-ID of a reconnecting client, null for new clients
+     * @return null when the feed is full
+     */
+    public SseEmitter subscribe(Long userId, Long lastEventId) {
+        if (subscribers.size() >= maxSubscribers) return null;
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        add(emitter, userId, lastEventId);
+        return emitter;
+    }
+
+    void add(SseEmitter emitter, Long userId, Long lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter, userId, lastEventId == null ? 0 : lastEventId);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> close(subscriber, null));
+        emitter.onError(error -> close(subscriber, null));
+
+        // Held until the replay is sent - posts published meanwhile wait in the buffer
+        subscriber.draining.set(true);
+        subscribers.add(subscriber);
+        try {
+            // First event right away, so the response headers go out even when no post follows for a while
+            send(subscriber, SseEmitter.event().reconnectTime(RECONNECT_MILLIS));
+            if (lastEventId != null) replay(subscriber, lastEventId);
+        } catch (IOException | RuntimeException e) {
+            close(subscriber, e);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        drain(subscriber);
+    }
+
+    // Sends the posts created after lastEventId, or tells the client to resync when it missed too many
+    private void replay(Subscriber subscriber, long lastEventId) throws IOException {
+        // Per-user feeds only count (and load) the posts of their user
+        List<Post> missed = subscriber.userId == null
+                ? postRepository.findChangedAfter(lastEventId, Limit.of(replayMax + 1))
+                : postRepository.findChangedAfterByUserId(subscriber.userId, lastEventId, Limit.of(replayMax + 1));
+        if (missed.size() > replayMax) {
+            send(subscriber, SseEmitter.event().name(EVENT_RESYNC).data(new PostChangeToken(lastEventId).encode()));
+            return;
+        }
+        for (Post post : missed) send(subscriber, event(post));
+        if (!missed.isEmpty()) subscriber.lastSent = missed.get(missed.size() - 1).getChangeSeq();
+    }
+
+    /**
+     * Hands a committed post to every matching subscriber - returns right away
+     */
+    public void publish(Post post) {
+        Long userId = post.getUser() != null ? post.getUser().getId() : null;
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.userId != null && !subscriber.userId.equals(userId)) continue;
+            if (!subscriber.buffer.offer(post)) {
+                logger.info("Live feed client too slow ({} events buffered), disconnecting", bufferSize);
+                if (evicted != null) evicted.increment();
+                close(subscriber, null);
+                continue;
+            }
+            drain(subscriber);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    // Starts a sender for the subscriber unless one is already running
+    private void drain(Subscriber subscriber) {
+        if (subscriber.buffer.isEmpty() && !subscriber.heartbeatDue) return;
+        if (!subscriber.draining.compareAndSet(false, true)) return;
+        senders.execute(() -> {
+            try {
+                boolean sent = false;
+                Post post;
+                while ((post = subscriber.buffer.poll()) != null) {
+                    if (post.getChangeSeq() > subscriber.lastSent) {
+                        send(subscriber, event(post));
+                        sent = true;
+                    }
+                }
+                if (subscriber.heartbeatDue) {
+                    subscriber.heartbeatDue = false;
+                    // A subscriber that just got posts does not need one
+                    if (!sent) send(subscriber, SseEmitter.event().comment("heartbeat"));
+                }
+            } catch (IOException | RuntimeException e) {
+                close(subscriber, e);
+            } finally {
+                subscriber.draining.set(false);
+            }
+            // A post may have arrived after the last poll but before draining was cleared
+            drain(subscriber);
+        });
+    }
+
+    private static SseEmitter.SseEventBuilder event(Post post) {
+        return SseEmitter.event()
+                .id(Long.toString(post.getChangeSeq()))
+                .name(EVENT_POST)
+                .data(post);
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        if (subscriber.closed.get()) return;
+        subscriber.sendDeadline.set(System.nanoTime() - origin + sendTimeout.toNanos());
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            // Given up on by evictStalled - this thread was replaced meanwhile
+            if (subscriber.sendDeadline.getAndSet(NOT_SENDING) == STALLED) removeSender();
+            if (subscriber.closed.get()) complete(subscriber);
+        }
+    }
+
+    // The senders write the heartbeats - one client that does not read must not hold up the others
+    void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue = true;
+            drain(subscriber);
+        }
+    }
+
+    // Disconnects the subscribers whose send is past its deadline and replaces their blocked sender threads
+    void evictStalled() {
+        long now = System.nanoTime() - origin;
+        for (Subscriber subscriber : subscribers) {
+            long deadline = subscriber.sendDeadline.get();
+            if (deadline <= NOT_SENDING || now < deadline) continue;
+            if (!subscriber.sendDeadline.compareAndSet(deadline, STALLED)) continue;  // the send just finished
+            logger.info("Live feed client not reading (send took over {}), disconnecting", sendTimeout);
+            if (evicted != null) evicted.increment();
+            addSender();
+            close(subscriber, null);
+        }
+    }
+
+    private synchronized void addSender() {
+        senders.setMaximumPoolSize(senders.getMaximumPoolSize() + 1);
+        senders.setCorePoolSize(senders.getCorePoolSize() + 1);
+    }
+
+    private synchronized void removeSender() {
+        senders.setCorePoolSize(senders.getCorePoolSize() - 1);
+        senders.setMaximumPoolSize(senders.getMaximumPoolSize() - 1);
+    }
+
+    int getSenderThreads() {
+        return senders.getCorePoolSize();
+    }
+
+    private void close(Subscriber subscriber, Throwable error) {
+        if (!subscriber.closed.compareAndSet(false, true)) return;
+        subscribers.remove(subscriber);
+        subscriber.buffer.clear();
+        // Client went away - nothing to report, completeWithError would only log the broken pipe again
+        if (error != null) logger.debug("Live feed client disconnected: {}", error.getMessage());
+        // complete() waits for a running send (both lock the emitter) - then the sender completes it afterwards
+        if (subscriber.sendDeadline.get() == NOT_SENDING) complete(subscriber);
+    }
+
+    private static void complete(Subscriber subscriber) {
+        try {
+            subscriber.emitter.complete();
+        } catch (RuntimeException ignored) {
+            // already completed by the container
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.example;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Version of a set of posts (all posts or one user's posts)
+ * @param changeSeq - change number (PostChangeLog) of the last write to the set, 0 when it was never written,
+ *                    -1 when the set has no version (unknown user)
+ * @param lastModified - time of that write, null when unknown
+ */
+public record PostListVersion(long changeSeq, LocalDateTime lastModified) {
+
+    /**
+     * Strong ETag for one representation of the listing
+     * @param variant - what else selects the body (path, cursor, page size...)
+     */
+    public String etag(String variant) {
+        return "\"" + changeSeq + "-" + Integer.toHexString(variant.hashCode()) + "\"";
+    }
+
+    /** Epoch millis of lastModified, -1 when unknown (Spring then skips If-Modified-Since) */
+    public long lastModifiedMillis() {
+        return lastModified == null ? -1 : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,40 @@
+package org.example;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+
+/**
+ * Versions of the post listings for ETag / Last-Modified
+ *
+ * Both are stored counters, written by the transactions that write the posts (PostChangeLog for
+ * all posts, UserPostStatsService for one user's posts) - reading a version is a single row lookup,
+ * and every instance hands out the same ETag for the same data
+ */
+@Component
+public class PostListVersions {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserPostStatsRepository userPostStatsRepository;
+
+    public PostListVersion all() {
+        return jdbcTemplate.queryForObject("SELECT last_seq, last_modified FROM post_change_seq",
+                (rs, rowNum) -> {
+                    Timestamp lastModified = rs.getTimestamp(2);
+                    return new PostListVersion(rs.getLong(1), lastModified == null ? null : lastModified.toLocalDateTime());
+                });
+    }
+
+    // Users without counters (unknown or deleted users, or users who did not post since the counters exist)
+    // get -1, which no stored row has
+    public PostListVersion ofUser(Long userId) {
+        return userPostStatsRepository.findById(userId)
+                .map(stats -> new PostListVersion(stats.getLastChangeSeq(), stats.getLastModified()))
+                .orElse(new PostListVersion(-1, null));
+    }
+}
@@ -0,0 +1,37 @@
+package org.example;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * The filters of GET /posts/query - every one is optional, the ones given are combined with AND
+ * into a single WHERE clause
+ *
+ * @param userId  posts of this author (idx_posts_user_id_created_date_id)
+ * @param title   exact title (idx_posts_title)
+ * @param keyword title contains the keyword - a LIKE '%...%' cannot use an index,
+ *                so it should be combined with an author or a date range on big tables
+ * @param from    created at or after (idx_posts_created_date_id)
+ * @param to      created before
+ */
+public record PostQuery(Long userId, String title, String keyword, LocalDateTime from, LocalDateTime to) {
+
+    public Specification<Post> toSpecification() {
+        Specification<Post> spec = Specification.where(null);
+        if (userId != null) spec = spec.and((root, query, cb) -> cb.equal(root.get("user").get("id"), userId));
+        if (title != null) spec = spec.and((root, query, cb) -> cb.equal(root.get("title"), title));
+        if (keyword != null) {
+            String pattern = "%" + escapeLike(keyword) + "%";
+            spec = spec.and((root, query, cb) -> cb.like(root.get("title"), pattern, '\\'));
+        }
+        if (from != null) spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdDate"), from));
+        if (to != null) spec = spec.and((root, query, cb) -> cb.lessThan(root.get("createdDate"), to));
+        return spec;
+    }
+
+    // The keyword is matched literally - % and _ are not wildcards
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
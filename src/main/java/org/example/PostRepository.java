@@ -1,14 +1,77 @@
 package org.example;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface PostRepository extends JpaRepository<Post,Long> {
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+// JpaSpecificationExecutor and PostSliceRepository back the dynamic filters of GET /posts/query
+public interface PostRepository extends JpaRepository<Post,Long>, JpaSpecificationExecutor<Post>, PostSliceRepository {
     List<Post> findByTitle(String title);
     List<Post> findByTitleContaining(String keyword);
+    List<Post> findByTitleContaining(String keyword, Pageable pageable);
     List<Post> findByUserId(Long userId);
     List<Post> findByCreatedDateAfter(LocalDateTime date);
 
+    // Posts of many users in one query (instead of one posts collection per user)
+    @Query("SELECT p FROM Post p WHERE p.user.id IN :userIds ORDER BY p.createdDate ASC, p.id ASC")
+    List<Post> findByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    // Keyset pagination - pages are ordered by (createdDate, id)
+    // and every next page seeks right after the last row of the previous one.
+    // The redundant "createdDate >= :createdDate" lets the database range-scan the (created_date, id) index,
+    // the OR alone would be a full scan
+    @Query("SELECT p FROM Post p ORDER BY p.createdDate ASC, p.id ASC")
+    List<Post> findFirstPage(Limit limit);
+
+    @Query("SELECT p FROM Post p " +
+            "WHERE p.createdDate >= :createdDate " +
+            "AND (p.createdDate > :createdDate OR (p.createdDate = :createdDate AND p.id > :id)) " +
+            "ORDER BY p.createdDate ASC, p.id ASC")
+    List<Post> findPageAfter(@Param("createdDate") LocalDateTime createdDate, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT p FROM Post p WHERE p.user.id = :userId ORDER BY p.createdDate ASC, p.id ASC")
+    List<Post> findFirstPageByUserId(@Param("userId") Long userId, Limit limit);
+
+    @Query("SELECT p FROM Post p " +
+            "WHERE p.user.id = :userId " +
+            "AND p.createdDate >= :createdDate " +
+            "AND (p.createdDate > :createdDate OR (p.createdDate = :createdDate AND p.id > :id)) " +
+            "ORDER BY p.createdDate ASC, p.id ASC")
+    List<Post> findPageAfterByUserId(@Param("userId") Long userId,
+                                     @Param("createdDate") LocalDateTime createdDate,
+                                     @Param("id") Long id,
+                                     Limit limit);
+
+    // Posts written after the given change number, in change order (GET /posts/changes)
+    @Query("SELECT p FROM Post p WHERE p.changeSeq > :since ORDER BY p.changeSeq ASC")
+    List<Post> findChangedAfter(@Param("since") long since, Limit limit);
+
+    // The same for the posts of one user (replay of GET /users/{userId}/posts/stream)
+    @Query("SELECT p FROM Post p WHERE p.user.id = :userId AND p.changeSeq > :since ORDER BY p.changeSeq ASC")
+    List<Post> findChangedAfterByUserId(@Param("userId") Long userId, @Param("since") long since, Limit limit);
+
+    // Streams every post for the NDJSON export - must be consumed inside a transaction and closed
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = NdjsonExporter.FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT p FROM Post p")
+    Stream<Post> streamAll();
+
+    // Streams the searchable text of every post to rebuild the search index
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = NdjsonExporter.FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new org.example.PostText(p.id, p.title, p.content) FROM Post p")
+    Stream<PostText> streamAllText();
 }
@@ -0,0 +1,211 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * PostResponseCache - Cache of ready-to-send JSON responses for the public post feeds
+ *
+ * The anonymous post listings are read far more often than posts are written,
+ * so instead of querying and serializing the same posts on every request
+ * we keep the serialized bytes and send them as they are.
+ *
+ * - Entries are fresh for "fresh-for", then stale until "stale-for"
+ * - A stale entry is still served, while ONE background refresh per key replaces it
+ *   (stale-while-revalidate), so readers never wait for the database
+ * - Concurrent misses for the same key share a single load
+ * - invalidateAll() is called whenever posts change
+ * - Size is bounded by the total number of cached bytes
+ */
+@Component
+public class PostResponseCache {
+    private static final Logger logger = LoggerFactory.getLogger(PostResponseCache.class);
+    private static final String CACHE_NAME = "post.responses";
+
+    @Value("${posts.response-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${posts.response-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${posts.response-cache.fresh-for:5s}")
+    private Duration freshFor;
+
+    @Value("${posts.response-cache.stale-for:60s}")
+    private Duration staleFor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, CachedResponse> cache;
+    // Loads and refreshes in progress, so one key is never loaded twice at the same time
+    private final ConcurrentMap<String, CompletableFuture<CachedResponse>> loading = new ConcurrentHashMap<>();
+    // Bumped on every invalidation - loads that started before it are not stored
+    private final AtomicLong generation = new AtomicLong();
+    private ExecutorService refresher;
+    private Timer refreshTimer;
+    private Counter staleHits;
+
+    /**
+     * A serialized response
+     * @param status - HTTP status code
+     * @param headers - response headers (e.g. X-Next-Cursor)
+     * @param body - the JSON body
+     * @param createdAt - System.nanoTime() when it was loaded
+     */
+    record CachedResponse(int status, HttpHeaders headers, byte[] body, long createdAt) {
+        boolean isFresh(Duration freshFor) {
+            return System.nanoTime() - createdAt < freshFor.toNanos();
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedResponse response) -> key.length() + response.body().length)
+                .expireAfterWrite(staleFor)
+                .recordStats()
+                .build();
+        refresher = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "post-response-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // cache.gets{result=hit|miss}, cache.size, cache.evictions... tagged cache=post.responses
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder(CACHE_NAME + ".hit.ratio", cache, c -> c.stats().hitRate()).register(meterRegistry);
+        refreshTimer = Timer.builder(CACHE_NAME + ".refresh")
+                .description("Time to reload and serialize a stale response in the background")
+                .register(meterRegistry);
+        staleHits = Counter.builder(CACHE_NAME + ".stale")
+                .description("Stale responses served while a refresh was running")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Returns the cached response for the key, loading it on a miss
+     * @param key - identifies the request (route + parameters)
+     * @param loader - builds the response when it is not cached (only 200 OK responses are cached)
+     * @return the serialized response
+     */
+    public ResponseEntity<byte[]> get(String key, Supplier<ResponseEntity<?>> loader) {
+        if (!enabled) return toResponse(serialize(loader.get()));
+
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached == null) return toResponse(load(key, loader));
+        if (!cached.isFresh(freshFor)) {
+            staleHits.increment();
+            refreshInBackground(key, loader);
+        }
+        return toResponse(cached);
+    }
+
+    /**
+     * Drops every cached response - called after posts are created or deleted
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private CachedResponse load(String key, Supplier<ResponseEntity<?>> loader) {
+        CompletableFuture<CachedResponse> mine = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> inFlight = loading.putIfAbsent(key, mine);
+        if (inFlight != null) {
+            // Someone is already loading this key - wait for their result
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                return serialize(loader.get()); // their load failed, try ourselves
+            }
+        }
+        try {
+            CachedResponse response = loadAndStore(key, loader);
+            mine.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    private void refreshInBackground(String key, Supplier<ResponseEntity<?>> loader) {
+        CompletableFuture<CachedResponse> mine = new CompletableFuture<>();
+        if (loading.putIfAbsent(key, mine) != null) return; // a refresh is already running
+        try {
+            refresher.execute(() -> {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                try {
+                    mine.complete(loadAndStore(key, loader));
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to refresh cached response {}", key, e);
+                    mine.completeExceptionally(e);
+                } finally {
+                    sample.stop(refreshTimer);
+                    loading.remove(key, mine);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loading.remove(key, mine);
+        }
+    }
+
+    private CachedResponse loadAndStore(String key, Supplier<ResponseEntity<?>> loader) {
+        long loadGeneration = generation.get();
+        CachedResponse response = serialize(loader.get());
+        if (response.status() != 200) return response;
+        cache.put(key, response);
+        // Posts changed while we were loading - this response may be outdated
+        if (generation.get() != loadGeneration) cache.asMap().remove(key, response);
+        return response;
+    }
+
+    private CachedResponse serialize(ResponseEntity<?> response) {
+        try {
+            byte[] body = response.getBody() == null ? new byte[0] : objectMapper.writeValueAsBytes(response.getBody());
+            return new CachedResponse(response.getStatusCode().value(), response.getHeaders(), body, System.nanoTime());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response", e);
+        }
+    }
+
+    private ResponseEntity<byte[]> toResponse(CachedResponse response) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.status()).headers(response.headers());
+        if (response.body().length == 0) return builder.build();
+        return builder.contentType(MediaType.APPLICATION_JSON).body(response.body());
+    }
+}
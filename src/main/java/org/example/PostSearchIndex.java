@@ -0,0 +1,221 @@
+package org.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * PostSearchIndex - In-memory inverted index over post titles and content
+ *
+ * Maps every term to the posts that contain it, so a search only touches the posts
+ * that match instead of scanning the whole posts table with LIKE '%keyword%'.
+ * Results are ranked with BM25 (the classic full-text relevance formula).
+ *
+ * - Posts are added by PostController right after they are saved
+ * - Instances that do not write posts (the reactive read tier) follow the change feed instead,
+ *   see syncChanges() and PostSearchIndexSync
+ * - The whole index is rebuilt from the database in the background at startup,
+ *   until that finishes isReady() is false and callers should fall back to the database
+ */
+@Component
+public class PostSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(PostSearchIndex.class);
+
+    // BM25 tuning - k1 controls term frequency saturation, b controls document length normalization
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // A term in the title counts as much as this many occurrences in the content
+    private static final int TITLE_WEIGHT = 2;
+
+    // Changes read from the change feed per query in syncChanges()
+    private static final int SYNC_BATCH = 500;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PostChangeLog postChangeLog;
+
+    // term -> (post id -> weighted term frequency)
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    // post id -> (term -> weighted term frequency), needed to remove or re-index a post
+    private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+    // post id -> document length (weighted number of terms)
+    private final Map<Long, Integer> lengths = new HashMap<>();
+    private long totalLength;
+
+    // Many concurrent searches, rare short writes
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+    // Changes up to this number are in the index (only kept up by syncChanges())
+    private volatile long syncedChangeSeq;
+
+    /**
+     * Rebuilds the index from the database on a background thread once the application is up,
+     * so startup is not delayed by the size of the posts table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        Thread thread = new Thread(this::rebuild, "post-search-index-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            // Posts saved while we rebuild are also indexed by PostController - index() is idempotent
+            Long count = transactionTemplate.execute(status -> {
+                // Read first - changes after it are not in the stream for sure, syncChanges() picks them up
+                syncedChangeSeq = postChangeLog.lastChangeSeq();
+                try (Stream<PostText> posts = postRepository.streamAllText()) {
+                    return posts.peek(post -> index(post.id(), post.title(), post.content())).count();
+                }
+            });
+            ready = true;
+            logger.info("Post search index built with {} posts in {} ms", count, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            logger.error("Failed to build post search index, search falls back to the database", e);
+        }
+    }
+
+    /**
+     * @return true once the startup rebuild has finished and search results are complete
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Applies the posts created, updated and deleted since the last sync (or the startup rebuild)
+     * Does nothing until the rebuild has finished
+     */
+    public void syncChanges() {
+        if (!ready) return;
+        PostChanges changes;
+        do {
+            changes = postChangeLog.changesSince(syncedChangeSeq, SYNC_BATCH);
+            changes.upserted().forEach(this::index);
+            removeAll(changes.deleted());
+            syncedChangeSeq = PostChangeToken.decode(changes.nextToken()).changeSeq();
+        } while (changes.hasMore());
+    }
+
+    /**
+     * Adds a post to the index (or replaces it if it is already indexed)
+     * @param post - a saved post (must have an id)
+     */
+    public void index(Post post) {
+        index(post.getId(), post.getTitle(), post.getContent());
+    }
+
+    void index(Long id, String title, String content) {
+        Map<String, Integer> terms = new HashMap<>();
+        for (String term : tokenize(title)) terms.merge(term, TITLE_WEIGHT, Integer::sum);
+        for (String term : tokenize(content)) terms.merge(term, 1, Integer::sum);
+        int length = terms.values().stream().mapToInt(Integer::intValue).sum();
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            documents.put(id, terms);
+            lengths.put(id, length);
+            totalLength += length;
+            terms.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, frequency));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes posts from the index (e.g. when their user is deleted)
+     * @param ids - ids of the removed posts
+     */
+    public void removeAll(Collection<Long> ids) {
+        lock.writeLock().lock();
+        try {
+            ids.forEach(this::removeLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(Long id) {
+        Map<String, Integer> terms = documents.remove(id);
+        if (terms == null) return;
+        totalLength -= lengths.remove(id);
+        for (String term : terms.keySet()) {
+            Map<Long, Integer> posts = postings.get(term);
+            posts.remove(id);
+            if (posts.isEmpty()) postings.remove(term);
+        }
+    }
+
+    /**
+     * Finds posts matching any term of the query, best matches first
+     * @param query - free text, e.g. "spring security"
+     * @param page - zero-based page number
+     * @param size - page size
+     * @return ids of the posts on the requested page, ordered by BM25 score (ties by id)
+     */
+    public List<Long> search(String query, int page, int size) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        Map<Long, Double> scores = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) return List.of();
+            double averageLength = (double) totalLength / documentCount;
+
+            for (String term : terms) {
+                Map<Long, Integer> posts = postings.get(term);
+                if (posts == null) continue;
+                double idf = Math.log(1 + (documentCount - posts.size() + 0.5) / (posts.size() + 0.5));
+                posts.forEach((id, frequency) -> {
+                    double norm = K1 * (1 - B + B * lengths.get(id) / averageLength);
+                    scores.merge(id, idf * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Keep only the top (page + 1) * size hits instead of sorting every match
+        int wanted = (int) Math.min((long) (page + 1) * size, scores.size());
+        if (wanted <= (long) page * size) return List.of();
+        Comparator<Map.Entry<Long, Double>> byRank = Map.Entry.<Long, Double>comparingByValue()
+                .reversed().thenComparing(Map.Entry.comparingByKey());
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(wanted, byRank.reversed());
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            top.offer(entry);
+            if (top.size() > wanted) top.poll();
+        }
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(top);
+        ranked.sort(byRank);
+        return ranked.subList(page * size, wanted).stream().map(Map.Entry::getKey).toList();
+    }
+
+    // Lower-cases the text and splits it on anything that is not a letter or a digit
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        List<String> terms = new ArrayList<>();
+        for (String term : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!term.isEmpty()) terms.add(term);
+        }
+        return terms;
+    }
+}
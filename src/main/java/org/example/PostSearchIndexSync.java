@@ -0,0 +1,59 @@
+package org.example;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the search index of the reactive read tier current
+ *
+ * The reactive instances do not write posts, so nothing would index the posts created after startup.
+ * Instead the index follows the change feed every posts.search.sync-interval - deleted posts included
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Component
+public class PostSearchIndexSync {
+    private static final Logger logger = LoggerFactory.getLogger(PostSearchIndexSync.class);
+
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+
+    @Value("${posts.search.sync-interval:1s}")
+    private Duration interval;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "post-search-index-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sync, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void sync() {
+        try {
+            postSearchIndex.syncChanges();
+        } catch (RuntimeException e) {
+            // Next round starts from the same change number
+            logger.warn("Post search index sync failed: {}", e.getMessage());
+        }
+    }
+}
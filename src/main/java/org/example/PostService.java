@@ -0,0 +1,111 @@
+package org.example;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes posts - the change feed number (PostChangeLog) and the user's post counters (UserPostStatsService)
+ * are updated in the same transaction
+ *
+ * Batches of posts are persisted in one transaction and flushed every posts.batch.size rows,
+ * so Hibernate sends them as JDBC insert batches (hibernate.jdbc.batch_size)
+ * and the persistence context never holds more than one batch
+ */
+@Service
+public class PostService {
+    private static final Logger logger = LoggerFactory.getLogger(PostService.class);
+    // Default length of a String column (VARCHAR(255)) - longer values would fail the whole batch
+    static final int MAX_TEXT_LENGTH = 255;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserPostStatsService userPostStatsService;
+
+    @Autowired
+    private PostChangeLog postChangeLog;
+
+    @Value("${posts.batch.size:50}")
+    private int batchSize;
+
+    /** Saves one post for the given user */
+    @Transactional
+    public Post create(User user, Post post) {
+        post.setId(null); // ids are always generated
+        post.setUser(user);
+        post.setChangeSeq(postChangeLog.allocate(1));
+        entityManager.persist(post);
+        userPostStatsService.postsCreated(user.getId(), List.of(post));
+        return post;
+    }
+
+    /**
+     * Saves the valid posts for the given user and rejects the rest
+     * @return one result per post, in the order of the list
+     */
+    @Transactional
+    public List<PostBatchResult> createAll(User user, List<Post> posts) {
+        List<PostBatchResult> results = new ArrayList<>(posts.size());
+        List<Post> pending = new ArrayList<>(batchSize);
+        List<Integer> pendingIndexes = new ArrayList<>(batchSize);
+        List<Post> created = new ArrayList<>(posts.size());
+        long valid = posts.stream().filter(post -> validate(post) == null).count();
+        long changeSeq = valid > 0 ? postChangeLog.allocate((int) valid) : 0;
+
+        for (int i = 0; i < posts.size(); i++) {
+            Post post = posts.get(i);
+            String error = validate(post);
+            if (error != null) {
+                results.add(PostBatchResult.rejected(i, error));
+                continue;
+            }
+            post.setId(null); // ids are always generated
+            post.setUser(user);
+            post.setChangeSeq(changeSeq++);
+            entityManager.persist(post);
+            pending.add(post);
+            pendingIndexes.add(i);
+            created.add(post);
+            results.add(null); // filled in once the batch is flushed
+
+            if (pending.size() == batchSize) flush(pending, pendingIndexes, results);
+        }
+        flush(pending, pendingIndexes, results);
+        userPostStatsService.postsCreated(user.getId(), created);
+        logger.info("Batch for user ID: {} - {} posts received", user.getId(), posts.size());
+        return results;
+    }
+
+    // Sends the pending inserts as one JDBC batch and detaches them
+    private void flush(List<Post> pending, List<Integer> pendingIndexes, List<PostBatchResult> results) {
+        if (pending.isEmpty()) return;
+        entityManager.flush();
+        entityManager.clear();
+        for (int i = 0; i < pending.size(); i++) {
+            int index = pendingIndexes.get(i);
+            results.set(index, PostBatchResult.created(index, pending.get(i).getId()));
+        }
+        pending.clear();
+        pendingIndexes.clear();
+    }
+
+    // Returns the reason a post cannot be saved, null if it is fine
+    static String validate(Post post) {
+        if (post == null) return "Post cant be null";
+        if (post.getTitle() == null || post.getTitle().isBlank()) return "Title cant be blank";
+        if (post.getTitle().length() > MAX_TEXT_LENGTH) return "Title must be less than " + MAX_TEXT_LENGTH + " characters";
+        if (post.getContent() != null && post.getContent().length() > MAX_TEXT_LENGTH)
+            return "Content must be less than " + MAX_TEXT_LENGTH + " characters";
+        return null;
+    }
+}
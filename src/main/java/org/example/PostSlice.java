@@ -0,0 +1,12 @@
+package org.example;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * One page of GET /posts/query
+ * hasNext tells whether the next page has posts; total is only there when the request asked for count=true
+ */
+public record PostSlice(List<Post> content, int page, int size, boolean hasNext,
+                        @JsonInclude(JsonInclude.Include.NON_NULL) Long total) {}
@@ -0,0 +1,17 @@
+package org.example;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Filtered pages of posts without the COUNT(*) that JpaSpecificationExecutor.findAll(spec, pageable) always runs
+ * (implemented by PostSliceRepositoryImpl, mixed into PostRepository)
+ */
+public interface PostSliceRepository {
+    /**
+     * One page of the posts matching spec, in the pageable's sort order
+     * Reads one row more than the page size to know whether another page exists
+     */
+    Slice<Post> findSlice(Specification<Post> spec, Pageable pageable);
+}
@@ -0,0 +1,39 @@
+package org.example;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+public class PostSliceRepositoryImpl implements PostSliceRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Post> findSlice(Specification<Post> spec, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Post> query = builder.createQuery(Post.class);
+        Root<Post> root = query.from(Post.class);
+        Predicate where = spec.toPredicate(root, query, builder);
+        if (where != null) query.where(where);
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+        int pageSize = pageable.getPageSize();
+        List<Post> rows = entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(pageable.getOffset()))
+                .setMaxResults(pageSize + 1)
+                .getResultList();
+        boolean hasNext = rows.size() > pageSize;
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageSize) : rows, pageable, hasNext);
+    }
+}
@@ -0,0 +1,10 @@
+package org.example;
+
+/**
+ * PostText - The searchable text of a post
+ *
+ * Loaded as a projection when the search index is rebuilt,
+ * so no Post entities pile up in the persistence context.
+ */
+public record PostText(Long id, String title, String content) {
+}
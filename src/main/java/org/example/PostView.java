@@ -0,0 +1,15 @@
+package org.example;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only row of the posts table for the reactive read path (R2DBC has no JPA entities)
+ * Serializes to the same JSON as Post
+ */
+@Table("posts")
+public record PostView(@Id Long id, String title, String content, LocalDateTime createdDate,
+                       long version, LocalDateTime lastModifiedDate) {
+}
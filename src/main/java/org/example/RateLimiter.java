@@ -0,0 +1,62 @@
+package org.example;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket per key - limit requests per period, bursts of up to limit
+ *
+ * Implemented as GCRA: a key only keeps the time its bucket will be full again (one AtomicLong),
+ * an attempt moves it forward by period / limit with a CAS - no locks, no refill thread.
+ * Keys live in a size-bounded Caffeine cache and expire once their bucket is full again,
+ * so an idle key costs nothing and an attack with many keys cannot grow memory past maxKeys
+ * (an evicted key simply starts with a full bucket)
+ */
+public class RateLimiter {
+    private final long intervalNanos;
+    private final long periodNanos;
+    private final LongSupplier clock;
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimiter(int limit, Duration period, long maxKeys) {
+        this(limit, period, maxKeys, System::nanoTime);
+    }
+
+    RateLimiter(int limit, Duration period, long maxKeys, LongSupplier clock) {
+        if (limit < 1) throw new IllegalArgumentException("limit must be at least 1");
+        this.periodNanos = period.toNanos();
+        this.intervalNanos = periodNanos / limit;
+        this.clock = clock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(period)
+                .build();
+    }
+
+    /**
+     * Takes one token for the key
+     * @return 0 when allowed, otherwise the nanoseconds until the next attempt would be allowed
+     */
+    public long tryAcquire(String key) {
+        long now = clock.getAsLong();
+        // Time at which the bucket is full again, a new key starts full
+        AtomicLong fullAt = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = fullAt.get();
+            long next = (current - now > 0 ? current : now) + intervalNanos;
+            long over = next - now - periodNanos;
+            if (over > 0) return over;
+            if (fullAt.compareAndSet(current, next)) return 0;
+        }
+    }
+
+    // Keys tracked right now - runs the pending evictions first
+    public long size() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,28 @@
+package org.example;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * JDBC DataSource for the "reactive" profile
+ *
+ * Spring Boot leaves out its own DataSource once an R2DBC ConnectionFactory exists, but Flyway and
+ * the JPA side (search index rebuild, feed replay, ...) still need one - built here the way Boot would
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDataSourceConfig {
+
+    // spring.datasource is still bound (DataSourceProperties). With read replicas ReplicaRoutingConfig builds the DataSource
+    @Bean
+    @ConditionalOnExpression("'${datasource.replicas[0].url:}'.isEmpty()")
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
@@ -0,0 +1,136 @@
+package org.example;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The public post reads on WebFlux + R2DBC (profile "reactive")
+ *
+ * Same URLs, parameters, JSON and status codes as PostController, but no request holds a thread
+ * while it waits for the database. Unbounded results (/posts/title/{title}) are streamed to the
+ * client row by row as a JSON array; the cursor pages are small and collected, because the
+ * X-Next-Cursor header has to be known before the body.
+ * Writes, the response cache and the ETags stay on the servlet stack.
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RestController
+public class ReactivePostController {
+
+    @Value("${posts.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${posts.page.max-size:100}")
+    private int maxPageSize;
+
+    @Autowired
+    private ReactivePostRepository postRepository;
+
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+
+    /** One page of all posts, oldest first - see PostController.returnAllPost */
+    @GetMapping("/posts")
+    public Mono<ResponseEntity<List<PostView>>> returnAllPost(@RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer limit){
+        int pageSize = pageSize(limit);
+        if (pageSize < 1) return Mono.just(ResponseEntity.badRequest().build());
+        if (cursor == null) return page(postRepository.findFirstPage(pageSize + 1), pageSize);
+        PostCursor after;
+        try {
+            after = PostCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return page(postRepository.findPageAfter(after.createdDate(), after.id(), pageSize + 1), pageSize);
+    }
+
+    /** One page of the user's posts, oldest first - see PostController.userAllPosts */
+    @GetMapping("/users/{userId}/posts")
+    public Mono<ResponseEntity<List<PostView>>> userAllPosts(@PathVariable Long userId,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer limit){
+        int pageSize = pageSize(limit);
+        if (pageSize < 1) return Mono.just(ResponseEntity.badRequest().build());
+        PostCursor after;
+        try {
+            after = cursor == null ? null : PostCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return postRepository.countUsers(userId).flatMap(users -> {
+            if (users == 0) return Mono.just(ResponseEntity.notFound().<List<PostView>>build());
+            Flux<PostView> rows = after == null
+                    ? postRepository.findFirstPageByUserId(userId, pageSize + 1)
+                    : postRepository.findPageAfterByUserId(userId, after.createdDate(), after.id(), pageSize + 1);
+            return page(rows, pageSize);
+        });
+    }
+
+    /** Every post with the title, streamed - 404 when there is none */
+    @GetMapping("/posts/title/{title}")
+    public Flux<PostView> findByTitle(@PathVariable String title){
+        // Nothing is committed before the first row, so an empty result can still turn into a 404
+        return postRepository.findByTitle(title).switchIfEmpty(notFound());
+    }
+
+    /** Full-text search, best matches first - see PostController.searchPosts */
+    @GetMapping("/posts/search/{keyword}")
+    public Flux<PostView> searchPosts(@PathVariable String keyword,
+                                      @RequestParam(defaultValue = "0") int page,
+                                      @RequestParam(required = false) Integer limit){
+        int pageSize = pageSize(limit);
+        if (pageSize < 1 || page < 0) return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST));
+
+        Flux<PostView> posts;
+        if (postSearchIndex.isReady()) {
+            // The index is in memory - only loading the posts goes to the database
+            List<Long> ids = postSearchIndex.search(keyword, page, pageSize);
+            posts = postRepository.findAllById(ids)
+                    .collectMap(PostView::id)
+                    .flatMapIterable(byId -> inOrder(ids, byId));
+        } else {
+            posts = postRepository.findByTitleContaining(keyword, PageRequest.of(page, pageSize));
+        }
+        return posts.switchIfEmpty(notFound());
+    }
+
+    // Requested page size, capped at the configured maximum (values below 1 are rejected by the caller)
+    private int pageSize(Integer limit) {
+        if (limit == null) return defaultPageSize;
+        return Math.min(limit, maxPageSize);
+    }
+
+    // The queries fetch one extra row - if it is there, another page exists (X-Next-Cursor)
+    private Mono<ResponseEntity<List<PostView>>> page(Flux<PostView> rows, int pageSize) {
+        return rows.collectList().map(list -> {
+            if (list.size() <= pageSize) return ResponseEntity.ok(list);
+            List<PostView> page = list.subList(0, pageSize);
+            PostView last = page.get(pageSize - 1);
+            String nextCursor = new PostCursor(last.createdDate(), last.id()).encode();
+            return ResponseEntity.ok().header(PostController.NEXT_CURSOR_HEADER, nextCursor).body(page);
+        });
+    }
+
+    // Keeps the order of the ids (search rank), skips posts deleted since they were indexed
+    private static List<PostView> inOrder(List<Long> ids, Map<Long, PostView> byId) {
+        return ids.stream().map(byId::get).filter(post -> post != null).toList();
+    }
+
+    private static <T> Mono<T> notFound() {
+        return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+}
@@ -0,0 +1,42 @@
+package org.example;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Non-blocking post queries for the reactive read path (profile "reactive")
+ * The same keyset pages as PostRepository, in SQL
+ */
+public interface ReactivePostRepository extends R2dbcRepository<PostView, Long> {
+    String COLUMNS = "SELECT id, title, content, created_date, version, last_modified_date FROM posts ";
+
+    Flux<PostView> findByTitle(String title);
+    Flux<PostView> findByTitleContaining(String keyword, Pageable pageable);
+
+    @Query(COLUMNS + "ORDER BY created_date ASC, id ASC LIMIT :limit")
+    Flux<PostView> findFirstPage(@Param("limit") int limit);
+
+    @Query(COLUMNS + "WHERE created_date >= :createdDate " +
+            "AND (created_date > :createdDate OR (created_date = :createdDate AND id > :id)) " +
+            "ORDER BY created_date ASC, id ASC LIMIT :limit")
+    Flux<PostView> findPageAfter(@Param("createdDate") LocalDateTime createdDate, @Param("id") Long id,
+                                 @Param("limit") int limit);
+
+    @Query(COLUMNS + "WHERE user_id = :userId ORDER BY created_date ASC, id ASC LIMIT :limit")
+    Flux<PostView> findFirstPageByUserId(@Param("userId") Long userId, @Param("limit") int limit);
+
+    @Query(COLUMNS + "WHERE user_id = :userId AND created_date >= :createdDate " +
+            "AND (created_date > :createdDate OR (created_date = :createdDate AND id > :id)) " +
+            "ORDER BY created_date ASC, id ASC LIMIT :limit")
+    Flux<PostView> findPageAfterByUserId(@Param("userId") Long userId, @Param("createdDate") LocalDateTime createdDate,
+                                         @Param("id") Long id, @Param("limit") int limit);
+
+    @Query("SELECT COUNT(*) FROM users WHERE id = :userId")
+    Mono<Long> countUsers(@Param("userId") Long userId);
+}
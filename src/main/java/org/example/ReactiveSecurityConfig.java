@@ -0,0 +1,50 @@
+package org.example;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Security for the reactive stack (profile "reactive") - mirrors SecurityConfig:
+ * stateless, JWT checked by JwtWebFilter, public post reads, 401 "Unauthorized" for everything else
+ * without a valid token
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Configuration
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, JwtUtil jwtUtil) {
+        return http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                // Stateless - nothing is stored between requests
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange(authorize -> authorize
+                        .pathMatchers("/actuator/hibernate/**").hasRole("ADMIN")
+                        .pathMatchers("/actuator/**").permitAll()
+                        .pathMatchers(HttpMethod.GET, "/posts/**").permitAll()
+                        .pathMatchers(HttpMethod.GET, "/users/*/posts").permitAll()
+                        .anyExchange().authenticated())
+                .exceptionHandling(exception -> exception
+                        .authenticationEntryPoint((exchange, authException) -> {
+                            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+                            return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory()
+                                    .wrap("Unauthorized".getBytes(StandardCharsets.UTF_8))));
+                        }))
+                .addFilterAt(new JwtWebFilter(jwtUtil), SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package org.example;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas - active when datasource.replicas[0].url is set
+ *
+ * spring.datasource stays the primary, every datasource.replicas[n] (url, username, password,
+ * driver-class-name, hikari.*) gets its own pool. See ReplicaRoutingDataSource for the routing rules
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas[0].url")
+public class ReplicaRoutingConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingConfig.class);
+
+    private ReplicaRoutingDataSource routing;
+
+    // The DataSource everybody uses - the connection is only fetched (and routed) at the first statement.
+    // The routing DataSource itself is not a bean, so the DataSource wrappers only wrap this proxy
+    @Bean
+    @Primary
+    DataSource dataSource(DataSourceProperties primaryProperties, Environment environment,
+                          @Value("${datasource.routing.sticky-for:5s}") Duration stickyFor,
+                          @Value("${datasource.routing.health-check-interval:10s}") Duration healthCheckInterval) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = pool(primaryProperties, binder, "spring.datasource.hikari", "primary");
+
+        List<DataSourceProperties> replicaProperties = binder.bind("datasource.replicas",
+                Bindable.listOf(DataSourceProperties.class)).orElse(List.of());
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaProperties.size(); i++) {
+            replicas.add(pool(replicaProperties.get(i), binder, "datasource.replicas[" + i + "].hikari", "replica-" + i));
+        }
+        logger.info("Routing read-only transactions to {} replicas, writers stick to the primary for {}", replicas.size(), stickyFor);
+        routing = new ReplicaRoutingDataSource(primary, replicas, stickyFor, healthCheckInterval);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    // Open-in-view keeps one EntityManager for the whole request, and by default (DELAYED_ACQUISITION_AND_HOLD)
+    // its connection too - a request that reads first would then write over the replica connection
+    // of that read. Releasing the connection after each transaction routes every transaction on its own
+    @Bean
+    HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @PreDestroy
+    void close() {
+        if (routing != null) routing.close();
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Binder binder, String hikariPrefix, String name) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind(hikariPrefix, Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        return pool;
+    }
+}
@@ -0,0 +1,136 @@
+package org.example;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to the replicas and everything else to the primary
+ *
+ * - replicas are used round-robin, replicas that fail the periodic health check are skipped
+ *   (no healthy replica - the primary serves the reads)
+ * - read-your-writes: after a write, the same user (or client address when not logged in)
+ *   reads from the primary for stickyFor, so they never see a replica that is behind
+ *
+ * Must sit behind a LazyConnectionDataSourceProxy - the connection has to be fetched
+ * after Spring has marked the transaction read-only, not when the transaction begins
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    static final String PRIMARY = "primary";
+
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final Map<String, DataSource> replicas = new HashMap<>();
+    // Written by the health check thread, read by every request
+    private volatile List<String> healthyReplicas;
+    private final AtomicInteger next = new AtomicInteger();
+    // Users / client addresses that wrote recently
+    private final Cache<String, Boolean> recentWriters;
+    private final ScheduledExecutorService healthChecker;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaPools, Duration stickyFor, Duration healthCheckInterval) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaPools.size(); i++) {
+            String key = "replica-" + i;
+            replicaKeys.add(key);
+            replicas.put(key, replicaPools.get(i));
+            targets.put(key, replicaPools.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        healthyReplicas = List.copyOf(replicaKeys);
+        recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickyFor)
+                .maximumSize(100_000)
+                .build();
+
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas,
+                healthCheckInterval.toMillis(), healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String client = currentClient();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Only read-write transactions count as writes, not connections used outside of a transaction
+            if (client != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                recentWriters.put(client, Boolean.TRUE);
+            }
+            return PRIMARY;
+        }
+        if (client != null && recentWriters.getIfPresent(client) != null) return PRIMARY;
+        List<String> healthy = healthyReplicas;
+        if (healthy.isEmpty()) return PRIMARY;
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+    }
+
+    /** Keys of the replicas that passed the last health check */
+    public List<String> getHealthyReplicas() {
+        return healthyReplicas;
+    }
+
+    // Runs on the health check thread - a replica is healthy when it hands out a valid connection
+    void checkReplicas() {
+        List<String> healthy = new ArrayList<>();
+        for (String key : replicaKeys) {
+            try (Connection connection = replicas.get(key).getConnection()) {
+                if (connection.isValid(2)) healthy.add(key);
+            } catch (Exception e) {
+                logger.debug("Replica {} failed the health check: {}", key, e.getMessage());
+            }
+        }
+        if (!healthy.equals(healthyReplicas)) logger.warn("Healthy replicas changed: {} -> {}", healthyReplicas, healthy);
+        healthyReplicas = List.copyOf(healthy);
+    }
+
+    /** Stops the health check and closes the pools */
+    public void close() {
+        healthChecker.shutdownNow();
+        closePool(getResolvedDefaultDataSource());
+        replicas.values().forEach(ReplicaRoutingDataSource::closePool);
+    }
+
+    private static void closePool(DataSource dataSource) {
+        if (!(dataSource instanceof AutoCloseable closeable)) return;
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            logger.warn("Failed to close {}: {}", dataSource, e.getMessage());
+        }
+    }
+
+    // The logged-in user, or the client address for anonymous requests, null outside of a request
+    private static String currentClient() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) return "user:" + authentication.getName();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servlet) return "ip:" + servlet.getRequest().getRemoteAddr();
+        return null;
+    }
+}
@@ -0,0 +1,36 @@
+package org.example;
+
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * JCache manager of the Hibernate second-level cache, regions are defined in ehcache.xml
+ *
+ * Looked up by URI, the provider hands every EntityManagerFactory in the JVM the same manager,
+ * and the first one to shut down closes it under the others (e.g. cached test contexts).
+ * Each application context gets its own manager instead - Hibernate closes it with the factory
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean
+    CacheManager hibernateCacheManager() {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        XmlConfiguration configuration = new XmlConfiguration(getClass().getResource("/ehcache.xml"), getClass().getClassLoader());
+        return provider.getCacheManager(URI.create("urn:hibernate-cache:" + UUID.randomUUID()), configuration);
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
@@ -1,14 +1,13 @@
 package org.example;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.http.HttpMethod;
@@ -18,9 +17,10 @@ import org.springframework.http.HttpMethod;
  * This class configures the security layer of the application:
  * - Which endpoints require authentication (protected) and which don't (public)
  * - Integration of JWT authentication filter into the security chain
- * - Password encoding configuration
  * - Exception handling for authentication failures
  */
+// Servlet stack only - ReactiveSecurityConfig does the same for the "reactive" profile
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Configuration  // Tells Spring this is a configuration class
 @EnableWebSecurity  // Enables Spring Security for the application
 @EnableMethodSecurity  // Enables @PreAuthorize on methods to check user roles before method execution
@@ -31,6 +31,10 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    // Per-IP / per-email login limits, checked before any user lookup or BCrypt work
+    @Autowired
+    private LoginThrottleFilter loginThrottleFilter;
+
     /**
      * Security Filter Chain Configuration
      *
@@ -63,11 +67,15 @@ public class SecurityConfig {
                         // Anyone can access these without authentication
                         // These are needed for user registration and obtaining JWT tokens
                         .requestMatchers("/auth/**").permitAll()
+                        // Hibernate statistics include SQL text - ADMIN only, checked before the permitAll below
+                        .requestMatchers("/actuator/hibernate/**").hasRole("ADMIN")
                         .requestMatchers("/actuator/**").permitAll()
 
                         // Public GET endpoints for posts - anyone can view posts
                         .requestMatchers(HttpMethod.GET, "/posts/**").permitAll()           // All GET /posts/** endpoints
                         .requestMatchers(HttpMethod.GET, "/users/*/posts").permitAll()      // GET /users/{id}/posts endpoint
+                        .requestMatchers(HttpMethod.GET, "/users/*/stats").permitAll()      // GET /users/{id}/stats endpoint
+                        .requestMatchers(HttpMethod.GET, "/users/*/posts/stream").permitAll() // GET /users/{id}/posts/stream endpoint
 
                         // All other endpoints require authentication
                         // User must provide valid JWT token in Authorization header
@@ -85,24 +93,10 @@ public class SecurityConfig {
                 // Add our JWT filter BEFORE the default Spring Security filter
                 // This ensures JWT validation happens first in the filter chain
                 // Order matters: JWT check → Spring Security authentication → Authorization
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // Login throttling runs even before the JWT filter
+                .addFilterBefore(loginThrottleFilter, JwtAuthenticationFilter.class);
 
         return httpSecurity.build();
     }
-
-    /**
-     * Password Encoder Bean
-     *
-     * Defines how passwords are encrypted/hashed in the application
-     * BCrypt is a strong one-way hashing algorithm that:
-     * - Automatically generates salt for each password
-     * - Is computationally expensive to crack
-     * - Is the industry standard for password hashing
-     *
-     * @return PasswordEncoder - BCrypt password encoder
-     */
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
 }
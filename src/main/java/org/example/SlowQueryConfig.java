@@ -0,0 +1,38 @@
+package org.example;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Slow query log - every statement is timed by SlowQueryDataSource,
+ * the ones slower than jpa.slow-query.threshold are kept in a ring buffer
+ * and shown by the "hibernate" actuator endpoint
+ */
+@Configuration
+@ConditionalOnProperty(name = "jpa.slow-query.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryConfig {
+
+    @Bean
+    static SlowQueryLog slowQueryLog(@Value("${jpa.slow-query.threshold:200ms}") Duration threshold,
+                                     @Value("${jpa.slow-query.capacity:100}") int capacity) {
+        return new SlowQueryLog(threshold, capacity);
+    }
+
+    @Bean
+    static BeanPostProcessor slowQueryDataSource(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof SlowQueryDataSource) return bean;
+                return new SlowQueryDataSource(dataSource, slowQueryLog.getObject());
+            }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package org.example;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource that times every statement and hands slow ones to the SlowQueryLog
+ * Replaces show-sql for finding expensive statements - nothing is logged for fast ones
+ */
+public class SlowQueryDataSource extends PoolWrappingDataSource {
+    private final SlowQueryLog slowQueryLog;
+
+    public SlowQueryDataSource(DataSource target, SlowQueryLog slowQueryLog) {
+        super(target);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return timed(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return timed(super.getConnection(username, password));
+    }
+
+    // Statements created by the connection are wrapped, everything else goes straight through
+    private Connection timed(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return switch (method.getName()) {
+                        case "prepareStatement" -> timed((Statement) result, PreparedStatement.class, (String) args[0]);
+                        case "prepareCall" -> timed((Statement) result, CallableStatement.class, (String) args[0]);
+                        case "createStatement" -> timed((Statement) result, Statement.class, null);
+                        default -> result;
+                    };
+                });
+    }
+
+    // sql is null for plain statements, there it is the first argument of execute...(sql)
+    private Object timed(Statement statement, Class<? extends Statement> type, String sql) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("execute")) return invoke(statement, method, args);
+                    long start = System.nanoTime();
+                    try {
+                        return invoke(statement, method, args);
+                    } finally {
+                        String text = sql != null ? sql : args != null && args.length > 0 ? String.valueOf(args[0]) : "(batch)";
+                        slowQueryLog.record(text, System.nanoTime() - start);
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
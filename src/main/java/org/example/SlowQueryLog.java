@@ -0,0 +1,66 @@
+package org.example;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The last N statements that took longer than the threshold
+ *
+ * A fixed ring buffer - writers claim a slot with one atomic increment and overwrite the oldest entry,
+ * so recording never blocks and memory use does not grow
+ */
+public class SlowQueryLog {
+
+    /** One slow statement */
+    public record SlowQuery(Instant at, long millis, String sql, String thread) {}
+
+    private final Duration threshold;
+    private final AtomicReferenceArray<SlowQuery> entries;
+    private final AtomicLong next = new AtomicLong();
+
+    public SlowQueryLog(Duration threshold, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Slow query log capacity must be at least 1, was " + capacity
+                    + " - use jpa.slow-query.enabled=false to turn the log off");
+        }
+        this.threshold = threshold;
+        this.entries = new AtomicReferenceArray<>(capacity);
+    }
+
+    public Duration getThreshold() {
+        return threshold;
+    }
+
+    /** Total number of slow statements since startup (or the last clear), including overwritten ones */
+    public long getCount() {
+        return next.get();
+    }
+
+    /** Keeps the statement if it ran longer than the threshold */
+    public void record(String sql, long nanos) {
+        if (nanos < threshold.toNanos()) return;
+        SlowQuery query = new SlowQuery(Instant.now(), nanos / 1_000_000, sql, Thread.currentThread().getName());
+        entries.set((int) (next.getAndIncrement() % entries.length()), query);
+    }
+
+    /** The kept statements, newest first */
+    public List<SlowQuery> getEntries() {
+        long last = next.get();
+        int size = (int) Math.min(last, entries.length());
+        List<SlowQuery> queries = new ArrayList<>(size);
+        for (long i = last - 1; i >= last - size; i--) {
+            SlowQuery query = entries.get((int) (i % entries.length()));
+            if (query != null) queries.add(query);
+        }
+        return queries;
+    }
+
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) entries.set(i, null);
+        next.set(0);
+    }
+}
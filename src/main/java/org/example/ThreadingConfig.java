@@ -0,0 +1,52 @@
+package org.example;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Opt-in virtual thread mode (profile "virtual-threads", needs a Java 21 runtime)
+ *
+ * spring.threads.virtual.enabled makes Tomcat serve every request on its own virtual thread.
+ * Then the thread count no longer caps concurrent database work, so when
+ * db.connection-limiter.enabled is set the DataSource is wrapped in a SemaphoreDataSource
+ */
+@Configuration
+public class ThreadingConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ThreadingConfig.class);
+
+    // static - a BeanPostProcessor must not drag the rest of this configuration into early initialization
+    @Bean
+    @ConditionalOnProperty(name = "db.connection-limiter.enabled", havingValue = "true")
+    static BeanPostProcessor connectionLimiter(@Value("${db.connection-limiter.permits:10}") int permits,
+                                               @Value("${db.connection-limiter.timeout:30s}") Duration timeout,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof SemaphoreDataSource) return bean;
+                logger.info("Limiting DataSource '{}' to {} concurrent connections", beanName, permits);
+                SemaphoreDataSource limited = new SemaphoreDataSource(dataSource, permits, timeout);
+                meterRegistry.ifAvailable(registry -> {
+                    Gauge.builder("db.connection.limiter.available", limited, SemaphoreDataSource::getAvailablePermits)
+                            .description("Connections that can still be checked out")
+                            .register(registry);
+                    Gauge.builder("db.connection.limiter.waiting", limited, SemaphoreDataSource::getWaiting)
+                            .description("Threads waiting for a connection")
+                            .register(registry);
+                });
+                return limited;
+            }
+        };
+    }
+}
@@ -1,18 +1,27 @@
 package org.example;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RestController
 public class UserController {
 
@@ -24,22 +33,44 @@ public class UserController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostResponseCache postResponseCache;
+
+    @Autowired
+    private UserImporter userImporter;
+
+    @Autowired
+    private UserPostStatsService userPostStatsService;
+
+    // Max number of user ids per IN (...) list when loading posts for include=posts
+    private static final int POSTS_FETCH_BATCH = 1000;
+
 
     @PreAuthorize("hasRole('ADMIN')") // Only ADMIN can create users
     @PostMapping("/users")
     public ResponseEntity<String> createUser(@Valid @RequestBody User user) {
-        logger.info("Creating new user: {} {}", user.getName(), user.getLastName());
-        User savedUser = userRepository.save(user);
+        logger.debug("Creating new user: {} {}", user.getName(), user.getLastName());
+        User savedUser = userPostStatsService.createUser(user);
         String message = "Created user - ID: " + savedUser.getId() + ", Name: " + savedUser.getName();
-        logger.info("User: {} {} created successfully with ID: {}", savedUser.getName(), savedUser.getLastName(), savedUser.getId());
+        logger.debug("User: {} {} created successfully with ID: {}", savedUser.getName(), savedUser.getLastName(), savedUser.getId());
         return ResponseEntity.status(201).body(message);
     }
 
     @PreAuthorize("hasRole('ADMIN')") // Only ADMIN can view all users
     @GetMapping("/users")
-    public ResponseEntity<List<User>> getAllUsers(HttpServletRequest request){
-        List<User> users = userRepository.findAll();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<UserSummary>> getAllUsers(HttpServletRequest request,
+                                                         @RequestParam(required = false) String include){
+        List<UserSummary> users = userRepository.findAllSummaries();
+        return ResponseEntity.ok(includePosts(users, include));
        /* ===== OLD CODE - BEFORE ROLE-BASED AUTHORIZATION =====
        String authHeader  = request.getHeader("Authorization"); //Extract the token
         if (authHeader == null || !authHeader.startsWith("Bearer ")){ // Check if header exists and has correct format
@@ -55,6 +86,38 @@ public class UserController {
 
     }
 
+    /**
+     * Exports every user as newline-delimited JSON (one user per line, without password or posts)
+     * Rows are streamed from the database, so memory use does not depend on the table size
+     */
+    @PreAuthorize("hasRole('ADMIN')")  // Only ADMIN can pull full exports
+    @Transactional(readOnly = true)    // Keeps the database cursor open while we stream
+    @GetMapping("/users/export")
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        try (Stream<User> users = userRepository.streamAll()) {
+            long count = ndjsonExporter.export(users, UserSummary::from, response);
+            logger.info("Exported {} users", count);
+        }
+    }
+
+    /**
+     * Bulk import of users from a CSV (with header line) or NDJSON body
+     * The body is streamed and imported in chunks, rejected rows are listed in the report
+     */
+    @PreAuthorize("hasRole('ADMIN')")  // Only ADMIN can import users
+    @PostMapping(value = "/users/import", consumes = {"text/csv", NdjsonExporter.NDJSON})
+    public ResponseEntity<?> importUsers(HttpServletRequest request) throws IOException {
+        UserImporter.Format format = request.getContentType().startsWith("text/csv")
+                ? UserImporter.Format.CSV : UserImporter.Format.NDJSON;
+        logger.info("Importing users from {}", format);
+        try {
+            return ResponseEntity.ok(userImporter.importUsers(request.getReader(), format));
+        } catch (IllegalArgumentException e) {
+            logger.warn("User import rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PreAuthorize("isAuthenticated()") // Any authenticated user can view a user by ID
     @GetMapping("/users/{id}")
     public ResponseEntity<User> getUserById(@PathVariable Long id){
@@ -70,7 +133,7 @@ public class UserController {
     public ResponseEntity<String> updateUser(@PathVariable Long id,
                                              @Valid @RequestBody User updateUser,
                                              Authentication authentication){
-        logger.info("Updating user with ID: {}", id);
+        logger.debug("Updating user with ID: {}", id);
 
         // Find user to update
         Optional<User> optionalUser = userRepository.findById(id);
@@ -93,7 +156,7 @@ public class UserController {
         user.setLastName(updateUser.getLastName());
         userRepository.save(user);
 
-        logger.info("User {} {} with ID: {} updated successfully", user.getName(), user.getLastName(), id);
+        logger.debug("User {} {} with ID: {} updated successfully", user.getName(), user.getLastName(), id);
         String message = "User " + user.getName() + " " + user.getLastName() + " is updated.";
         return ResponseEntity.ok(message);
     }
@@ -101,7 +164,7 @@ public class UserController {
     @PreAuthorize("isAuthenticated()")  // Must be logged in
     @DeleteMapping("/users/{id}")
     public ResponseEntity<String> deleteUser(@PathVariable Long id, Authentication authentication){
-        logger.info("Deleting user with ID: {}", id);
+        logger.debug("Deleting user with ID: {}", id);
 
         // Find user to delete
         Optional<User> optionalUser = userRepository.findById(id);
@@ -117,27 +180,32 @@ public class UserController {
             return ResponseEntity.status(403).body("You can only delete your own profile");
         }
 
-        // Delete user
-        userRepository.delete(user);
+        // Delete user (cascades to the user's posts, so drop them from the search index too)
+        List<Long> postIds = user.getPosts().stream().map(Post::getId).toList();
+        userPostStatsService.deleteUser(user);
+        postSearchIndex.removeAll(postIds);
+        postResponseCache.invalidateAll();
         String message = "user: " + user.getName() + " " + user.getLastName() + " deleted";
-        logger.info("User with ID: {} deleted successfully", id);
+        logger.debug("User with ID: {} deleted successfully", id);
         return ResponseEntity.ok(message);
     }
 
     @PreAuthorize("isAuthenticated()")  // Any authenticated user can search by age
     @GetMapping("/users/age/{age}")
-    public ResponseEntity<List<User>> findUserByAge(@PathVariable int age){
-        List<User> users = userRepository.findByAge(age);
+    public ResponseEntity<List<UserSummary>> findUserByAge(@PathVariable int age,
+                                                           @RequestParam(required = false) String include){
+        List<UserSummary> users = userRepository.findSummariesByAge(age);
         if (users.isEmpty()) return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(users);
+        return ResponseEntity.ok(includePosts(users, include));
     }
 
     @PreAuthorize("isAuthenticated()")  // Any authenticated user can search by age range
     @GetMapping("/users/age-above/{age}")
-    public ResponseEntity<List<User>> findByAgeGreaterThan(@PathVariable int age){
-        List<User> users = userRepository.findByAgeGreaterThan(age);
+    public ResponseEntity<List<UserSummary>> findByAgeGreaterThan(@PathVariable int age,
+                                                                  @RequestParam(required = false) String include){
+        List<UserSummary> users = userRepository.findSummariesByAgeGreaterThan(age);
         if (users.isEmpty())return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(users);
+        return ResponseEntity.ok(includePosts(users, include));
     }
 
     @PreAuthorize("hasRole('ADMIN')")  // Only ADMIN can search by email (sensitive data)
@@ -150,4 +218,26 @@ public class UserController {
         }
         return ResponseEntity.notFound().build();
     }
+
+    /**
+     * Attaches posts to the user summaries when the client asked for include=posts
+     * Posts of all listed users are loaded with one query per 1000 users
+     * instead of one query per user
+     */
+    private List<UserSummary> includePosts(List<UserSummary> users, String include) {
+        if (!"posts".equals(include) || users.isEmpty()) return users;
+
+        List<Long> userIds = users.stream().map(UserSummary::id).toList();
+        Map<Long, List<Post>> postsByUser = new HashMap<>();
+        for (int from = 0; from < userIds.size(); from += POSTS_FETCH_BATCH) {
+            List<Long> batch = userIds.subList(from, Math.min(from + POSTS_FETCH_BATCH, userIds.size()));
+            for (Post post : postRepository.findByUserIdIn(batch)) {
+                // getId() on the lazy user proxy does not load the user
+                postsByUser.computeIfAbsent(post.getUser().getId(), id -> new ArrayList<>()).add(post);
+            }
+        }
+        return users.stream()
+                .map(user -> user.withPosts(postsByUser.getOrDefault(user.id(), List.of())))
+                .toList();
+    }
 }
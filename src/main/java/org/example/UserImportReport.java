@@ -0,0 +1,13 @@
+package org.example;
+
+import java.util.List;
+
+/**
+ * Result of a bulk user import
+ * Only the first users.import.max-errors errors are listed, "rejected" counts all of them
+ */
+public record UserImportReport(int imported, int rejected, List<RowError> errors, boolean errorsTruncated) {
+
+    /** A rejected row - row numbers start at 1 and do not count the CSV header */
+    public record RowError(long row, String email, String error) {}
+}
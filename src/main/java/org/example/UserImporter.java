@@ -0,0 +1,328 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk user import from CSV or NDJSON
+ *
+ * The body is read and validated line by line and handled in chunks of users.import.chunk-size rows:
+ * drop emails that repeat within the chunk or already exist (one IN query per chunk),
+ * hash the passwords on a bounded thread pool and insert the chunk as one JDBC batch
+ * (plus one statement for the users' empty post counters).
+ * Memory use depends on the chunk size, not on the size of the upload.
+ * Every chunk commits on its own - a failed chunk does not undo the ones before it
+ */
+@Service
+public class UserImporter {
+    private static final Logger logger = LoggerFactory.getLogger(UserImporter.class);
+
+    public enum Format { CSV, NDJSON }
+
+    // Expected CSV columns, role is optional (defaults to USER)
+    static final String CSV_HEADER = "name,lastName,age,email,password,role";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO users (name, last_name, age, email, password, role) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Empty post counters (UserPostStats) for the users of the chunk, followed by their emails
+    private static final String INSERT_STATS_SQL =
+            "INSERT INTO user_post_stats (user_id, post_count, last_change_seq) SELECT id, 0, 0 FROM users WHERE email IN ";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${users.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${users.import.hash-threads:0}")
+    private int hashThreads;
+
+    @Value("${users.import.max-errors:1000}")
+    private int maxErrors;
+
+    private ThreadPoolExecutor hashPool;
+
+    @PostConstruct
+    void init() {
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        // Bounded queue - when it is full the importing thread hashes the password itself
+        hashPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(chunkSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "user-import-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashPool.shutdownNow();
+    }
+
+    public UserImportReport importUsers(Reader body, Format format) throws IOException {
+        Progress progress = new Progress();
+        BufferedReader reader = new BufferedReader(body);
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        long rowNumber = 0;
+        String line;
+
+        if (format == Format.CSV) {
+            String header = reader.readLine();
+            header = header == null ? "" : header.replace(" ", "");
+            if (!header.equals(CSV_HEADER) && !header.equals(CSV_HEADER.substring(0, CSV_HEADER.lastIndexOf(',')))) {
+                throw new IllegalArgumentException("CSV must start with the header: " + CSV_HEADER);
+            }
+        }
+        try {
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                rowNumber++;
+                Row row = format == Format.CSV ? parseCsv(rowNumber, line) : parseJson(rowNumber, line);
+                if (row.error == null) row.error = validate(row.user);
+                if (row.error != null) {
+                    progress.reject(row);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, progress);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) importChunk(chunk, progress);
+        } finally {
+            // Rows were inserted with plain JDBC, so cached findByEmail results (including "not found") are stale -
+            // also when the import broke off after some chunks were committed
+            if (progress.imported > 0) {
+                entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegion("users-by-email");
+            }
+        }
+        logger.info("User import finished: {} imported, {} rejected", progress.imported, progress.rejected);
+        return new UserImportReport(progress.imported, progress.rejected, progress.errors,
+                progress.rejected > progress.errors.size());
+    }
+
+    private void importChunk(List<Row> chunk, Progress progress) {
+        // Keep the first row of every email and skip emails that are already registered
+        // Emails are compared in lower case - the unique index on MySQL ignores case, so Anna@x and anna@x
+        // would fail the whole insert batch
+        List<Row> accepted = new ArrayList<>(chunk.size());
+        Set<String> emails = new HashSet<>();
+        for (Row row : chunk) {
+            if (!emails.add(normalize(row.user.getEmail()))) {
+                progress.reject(row.fail("Duplicate email in import"));
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) return;
+        Set<String> existing = new HashSet<>();
+        for (String email : jdbcTemplate.queryForList(
+                "SELECT email FROM users WHERE email IN (" + "?,".repeat(emails.size() - 1) + "?)",
+                String.class, emails.toArray())) {
+            existing.add(normalize(email));
+        }
+        if (!existing.isEmpty()) {
+            List<Row> fresh = new ArrayList<>(accepted.size());
+            for (Row row : accepted) {
+                if (existing.contains(normalize(row.user.getEmail()))) progress.reject(row.fail("Email already exists"));
+                else fresh.add(row);
+            }
+            accepted = fresh;
+            if (accepted.isEmpty()) return;
+        }
+
+        List<String> hashes = hashAll(accepted);
+        List<Object[]> batch = new ArrayList<>(accepted.size());
+        List<String> acceptedEmails = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            User user = accepted.get(i).user;
+            batch.add(new Object[]{user.getName(), user.getLastName(), user.getAge(), user.getEmail(),
+                    hashes.get(i), user.getRole().name()});
+            acceptedEmails.add(user.getEmail());
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                jdbcTemplate.update(INSERT_STATS_SQL + "(" + "?,".repeat(acceptedEmails.size() - 1) + "?)",
+                        acceptedEmails.toArray());
+            });
+            progress.imported += accepted.size();
+        } catch (DataAccessException e) {
+            // e.g. an email registered by someone else since the lookup - the chunk is rolled back as a whole
+            logger.warn("User import chunk of {} rows failed: {}", accepted.size(), e.getMessage());
+            for (Row row : accepted) progress.reject(row.fail("Chunk could not be saved: " + e.getMostSpecificCause().getMessage()));
+        }
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    // Hashes the passwords of the chunk in parallel, results are in the order of the rows
+    private List<String> hashAll(List<Row> rows) {
+        List<Future<String>> futures = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            String password = row.user.getPassword();
+            futures.add(hashPool.submit(() -> passwordEncoder.encode(password)));
+        }
+        List<String> hashes = new ArrayList<>(rows.size());
+        try {
+            for (Future<String> future : futures) hashes.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("User import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+        return hashes;
+    }
+
+    // Same rules as registration (the bean validation annotations on User), first violation wins
+    private String validate(User user) {
+        Set<ConstraintViolation<User>> violations = validator.validate(user);
+        if (violations.isEmpty()) return null;
+        return violations.iterator().next().getMessage();
+    }
+
+    private Row parseJson(long rowNumber, String line) {
+        try {
+            User user = objectMapper.readValue(line, User.class);
+            if (user.getRole() == null) user.setRole(Role.USER);
+            return new Row(rowNumber, user);
+        } catch (JsonProcessingException e) {
+            return new Row(rowNumber, null).fail("Malformed JSON");
+        }
+    }
+
+    private Row parseCsv(long rowNumber, String line) {
+        List<String> fields = splitCsv(line);
+        if (fields == null || fields.size() < 5 || fields.size() > 6) {
+            return new Row(rowNumber, null).fail("Expected columns: " + CSV_HEADER);
+        }
+        User user = new User(fields.get(0), fields.get(1), 0, fields.get(4), fields.get(3));
+        try {
+            user.setAge(Integer.parseInt(fields.get(2).strip()));
+        } catch (NumberFormatException e) {
+            return new Row(rowNumber, user).fail("Age must be a number");
+        }
+        if (fields.size() == 6 && !fields.get(5).isBlank()) {
+            try {
+                user.setRole(Role.valueOf(fields.get(5).strip().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                return new Row(rowNumber, user).fail("Unknown role");
+            }
+        }
+        return new Row(rowNumber, user);
+    }
+
+    // Splits one CSV line, fields may be quoted ("a, b" and "" for a quote), returns null on an open quote
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) return null;
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static class Row {
+        final long number;
+        final User user;
+        String error;
+
+        Row(long number, User user) {
+            this.number = number;
+            this.user = user;
+        }
+
+        Row fail(String error) {
+            this.error = error;
+            return this;
+        }
+    }
+
+    private class Progress {
+        int imported;
+        int rejected;
+        final List<UserImportReport.RowError> errors = new ArrayList<>();
+
+        void reject(Row row) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                String email = row.user == null ? null : row.user.getEmail();
+                errors.add(new UserImportReport.RowError(row.number, email, row.error));
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Post counters of one user - kept up to date by UserPostStatsService in the transaction that
+ * creates the posts, so reading them is a primary key lookup instead of a COUNT over the posts
+ */
+@Entity
+@Table(name = "user_post_stats")
+public class UserPostStats {
+    @Id
+    private Long userId;
+
+    private long postCount;
+    private LocalDateTime firstPostDate;
+    private LocalDateTime lastPostDate;
+
+    // Version of the user's post listing (PostListVersions) - change number and time of the last write
+    @JsonIgnore
+    private long lastChangeSeq;
+    @JsonIgnore
+    private LocalDateTime lastModified;
+
+    public UserPostStats(){}
+
+    public UserPostStats(Long userId, long postCount, LocalDateTime firstPostDate, LocalDateTime lastPostDate){
+        this.userId = userId;
+        this.postCount = postCount;
+        this.firstPostDate = firstPostDate;
+        this.lastPostDate = lastPostDate;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getPostCount() {
+        return postCount;
+    }
+
+    public LocalDateTime getFirstPostDate() {
+        return firstPostDate;
+    }
+
+    public LocalDateTime getLastPostDate() {
+        return lastPostDate;
+    }
+
+    public long getLastChangeSeq() {
+        return lastChangeSeq;
+    }
+
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+
+    /** Records a write to the user's posts */
+    public void changed(long changeSeq, LocalDateTime time) {
+        this.lastChangeSeq = changeSeq;
+        this.lastModified = time;
+    }
+}
@@ -0,0 +1,35 @@
+package org.example;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface UserPostStatsRepository extends JpaRepository<UserPostStats, Long> {
+
+    // Adds new posts to the counters and moves the listing version in one statement - the row lock serializes concurrent writers of the same user
+    // Returns 0 when the user has no stats row yet
+    @Modifying
+    @Query("UPDATE UserPostStats s SET s.postCount = s.postCount + :count, " +
+            "s.firstPostDate = CASE WHEN s.firstPostDate IS NULL OR s.firstPostDate > :first THEN :first ELSE s.firstPostDate END, " +
+            "s.lastPostDate = CASE WHEN s.lastPostDate IS NULL OR s.lastPostDate < :last THEN :last ELSE s.lastPostDate END, " +
+            "s.lastChangeSeq = :changeSeq, s.lastModified = :now " +
+            "WHERE s.userId = :userId")
+    int addPosts(@Param("userId") Long userId,
+                 @Param("count") long count,
+                 @Param("first") LocalDateTime first,
+                 @Param("last") LocalDateTime last,
+                 @Param("changeSeq") long changeSeq,
+                 @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM UserPostStats s WHERE s.userId = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+
+    // Counts the posts table - only used to create the stats row of a user who had posts before it existed
+    @Query("SELECT new org.example.UserPostStats(p.user.id, COUNT(p), MIN(p.createdDate), MAX(p.createdDate)) " +
+            "FROM Post p WHERE p.user.id = :userId GROUP BY p.user.id")
+    UserPostStats countPosts(@Param("userId") Long userId);
+}
@@ -0,0 +1,92 @@
+package org.example;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps the per-user post counters (UserPostStats)
+ *
+ * The counters are changed in the same transaction as the posts / the user,
+ * so they never drift from the posts table
+ */
+@Service
+public class UserPostStatsService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserPostStatsRepository userPostStatsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostChangeLog postChangeLog;
+
+    /**
+     * Adds freshly persisted posts of one user to the counters
+     * Must run inside the transaction that persisted the posts
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void postsCreated(Long userId, List<Post> posts) {
+        if (posts.isEmpty()) return;
+        LocalDateTime first = null;
+        LocalDateTime last = null;
+        long changeSeq = 0;
+        for (Post post : posts) {
+            LocalDateTime created = post.getCreatedDate();
+            if (first == null || created.isBefore(first)) first = created;
+            if (last == null || created.isAfter(last)) last = created;
+            changeSeq = Math.max(changeSeq, post.getChangeSeq());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (userPostStatsRepository.addPosts(userId, posts.size(), first, last, changeSeq, now) > 0) return;
+
+        // No stats row (a user saved without createUser) - lock the user so only one transaction creates it,
+        // then count the posts table once (it already holds the new posts)
+        entityManager.find(User.class, userId, LockModeType.PESSIMISTIC_WRITE);
+        if (userPostStatsRepository.addPosts(userId, posts.size(), first, last, changeSeq, now) > 0) return;
+        entityManager.flush();
+        UserPostStats stats = userPostStatsRepository.countPosts(userId);
+        stats.changed(changeSeq, now);
+        entityManager.persist(stats);
+    }
+
+    /**
+     * Counters of one user, empty if the user does not exist
+     * Every user has a row - created with the user, and migration V6 added them for the users before
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserPostStats> get(Long userId) {
+        return userPostStatsRepository.findById(userId);
+    }
+
+    /** Saves a new user together with their (zero) counters */
+    @Transactional
+    public User createUser(User user) {
+        User saved = userRepository.save(user);
+        entityManager.persist(new UserPostStats(saved.getId(), 0, null, null));
+        return saved;
+    }
+
+    /**
+     * Deletes the user (with their posts, see User.posts), their counters and leaves tombstones
+     * for the posts in the change feed - all in one transaction
+     */
+    @Transactional
+    public void deleteUser(User user) {
+        postChangeLog.deleted(user.getId(), user.getPosts().stream().map(Post::getId).toList());
+        userPostStatsRepository.deleteByUserId(user.getId());
+        userRepository.delete(user);
+    }
+}
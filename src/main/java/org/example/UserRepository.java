@@ -1,12 +1,43 @@
 package org.example;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface UserRepository extends JpaRepository<User,Long>{
     List<User>findByAge(int age);
     List<User>findByAgeGreaterThan(int age);
+    // Cached in the query cache - invalidated by Hibernate whenever the users table changes
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = "users-by-email")})
     Optional<User> findByEmail(String email);
+
+    // Projection queries - select only the summary columns, no entities and no posts
+    @Query("SELECT new org.example.UserSummary(u.id, u.name, u.lastName, u.age, u.email, u.role) FROM User u")
+    List<UserSummary> findAllSummaries();
+
+    @Query("SELECT new org.example.UserSummary(u.id, u.name, u.lastName, u.age, u.email, u.role) " +
+            "FROM User u WHERE u.age = :age")
+    List<UserSummary> findSummariesByAge(@Param("age") int age);
+
+    @Query("SELECT new org.example.UserSummary(u.id, u.name, u.lastName, u.age, u.email, u.role) " +
+            "FROM User u WHERE u.age > :age")
+    List<UserSummary> findSummariesByAgeGreaterThan(@Param("age") int age);
+
+    // Streams every user for the NDJSON export - must be consumed inside a transaction and closed
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = NdjsonExporter.FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT u FROM User u")
+    Stream<User> streamAll();
 }
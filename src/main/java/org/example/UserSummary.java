@@ -0,0 +1,40 @@
+package org.example;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * UserSummary - Read-only view of a user for API responses
+ *
+ * Carries only the public profile fields: no password hash,
+ * and posts only when they were explicitly requested (include=posts).
+ * Repositories build it directly with a constructor expression,
+ * so listing users never loads User entities or their posts collections.
+ */
+public record UserSummary(Long id, String name, String lastName, int age, String email, Role role,
+                          @JsonInclude(JsonInclude.Include.NON_NULL) List<Post> posts) {
+
+    // Used by the projection queries - posts are not loaded
+    public UserSummary(Long id, String name, String lastName, int age, String email, Role role) {
+        this(id, name, lastName, age, email, role, null);
+    }
+
+    /**
+     * Builds a summary from a loaded user entity
+     * @param user - the user entity
+     * @return summary with the profile fields of the user
+     */
+    public static UserSummary from(User user) {
+        return new UserSummary(user.getId(), user.getName(), user.getLastName(),
+                user.getAge(), user.getEmail(), user.getRole());
+    }
+
+    /**
+     * @param posts - the user's posts
+     * @return a copy of this summary that includes the posts
+     */
+    public UserSummary withPosts(List<Post> posts) {
+        return new UserSummary(id, name, lastName, age, email, role, posts);
+    }
+}
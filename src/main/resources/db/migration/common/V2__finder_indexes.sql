@@ -0,0 +1,16 @@
+-- Indexes for the repository finders (QueryPlanTest fails when one of them falls back to a table scan)
+
+-- PostRepository.findByTitle
+create index idx_posts_title on posts (title);
+
+-- findByCreatedDateAfter and the keyset pages of all posts (findFirstPage / findPageAfter),
+-- which filter and sort on (created_date, id)
+create index idx_posts_created_date_id on posts (created_date, id);
+
+-- findByUserId, findByUserIdIn, the keyset pages of one user (findFirstPageByUserId / findPageAfterByUserId),
+-- findListVersionByUserId and the user post stats - all filter on user_id and sort on (created_date, id).
+-- The index H2 / MySQL made for the user_id foreign key only covers the filter, not the sort
+create index idx_posts_user_id_created_date_id on posts (user_id, created_date, id);
+
+-- UserRepository.findByAge / findByAgeGreaterThan and their summary projections
+create index idx_users_age on users (age);
@@ -0,0 +1,22 @@
+-- Change feed for GET /posts/changes
+
+-- Every write to a post stamps it with the next change number (PostChangeLog).
+-- Existing posts get their id, which is unique and lower than anything allocated from now on
+alter table posts add column change_seq bigint default 0 not null;
+update posts set change_seq = id;
+create index idx_posts_change_seq on posts (change_seq);
+
+-- Last allocated change number - a single row, its row lock orders the writers
+create table post_change_seq (
+    last_seq bigint not null
+);
+insert into post_change_seq (last_seq) select coalesce(max(id), 0) from posts;
+
+-- Deleted posts, so clients can drop them from their copy
+create table post_tombstones (
+    post_id bigint not null,
+    user_id bigint,
+    change_seq bigint not null,
+    primary key (post_id)
+);
+create index idx_post_tombstones_change_seq on post_tombstones (change_seq);
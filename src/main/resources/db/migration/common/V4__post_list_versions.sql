@@ -0,0 +1,13 @@
+-- Versions of the post listings for ETag / Last-Modified (PostListVersions)
+
+-- All posts: the change number in post_change_seq already moves with every write,
+-- it only needs the time of that write
+alter table post_change_seq add column last_modified datetime(6);
+update post_change_seq set last_modified = (select max(coalesce(last_modified_date, created_date)) from posts);
+
+-- One user's posts: the change number and time of the user's last write, kept with the user's counters
+alter table user_post_stats add column last_change_seq bigint default 0 not null;
+alter table user_post_stats add column last_modified datetime(6);
+update user_post_stats set
+    last_change_seq = (select coalesce(max(p.change_seq), 0) from posts p where p.user_id = user_post_stats.user_id),
+    last_modified = (select max(coalesce(p.last_modified_date, p.created_date)) from posts p where p.user_id = user_post_stats.user_id);
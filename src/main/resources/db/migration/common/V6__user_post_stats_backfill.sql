@@ -0,0 +1,9 @@
+-- Post counters for every user who has none yet (users who did not post since the counters exist),
+-- from now on every user gets a row when created - reading the counters is a primary key lookup
+insert into user_post_stats (user_id, post_count, first_post_date, last_post_date, last_change_seq, last_modified)
+select u.id, count(p.id), min(p.created_date), max(p.created_date),
+       coalesce(max(p.change_seq), 0), max(coalesce(p.last_modified_date, p.created_date))
+from users u
+left join posts p on p.user_id = u.id
+where not exists (select 1 from user_post_stats s where s.user_id = u.id)
+group by u.id;
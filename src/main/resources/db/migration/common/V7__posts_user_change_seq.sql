@@ -0,0 +1,3 @@
+-- PostRepository.findChangedAfterByUserId - the replay of a per-user live feed
+-- filters on user_id and reads in change_seq order
+create index idx_posts_user_id_change_seq on posts (user_id, change_seq);
@@ -0,0 +1,33 @@
+-- Schema as Hibernate created it with ddl-auto before the migrations (H2)
+create sequence posts_seq start with 1 increment by 50;
+
+create table users (
+    id bigint generated by default as identity,
+    name varchar(50) not null,
+    last_name varchar(50) not null,
+    age integer not null check ((age >= 18) and (age <= 120)),
+    email varchar(254) not null unique,
+    password varchar(255) not null,
+    role enum ('ADMIN', 'USER'),
+    primary key (id)
+);
+
+create table posts (
+    id bigint not null,
+    title varchar(255),
+    content varchar(255),
+    created_date timestamp(6),
+    last_modified_date timestamp(6),
+    version bigint not null,
+    user_id bigint,
+    primary key (id),
+    constraint fk_posts_user foreign key (user_id) references users (id)
+);
+
+create table user_post_stats (
+    user_id bigint not null,
+    post_count bigint not null,
+    first_post_date timestamp(6),
+    last_post_date timestamp(6),
+    primary key (user_id)
+);
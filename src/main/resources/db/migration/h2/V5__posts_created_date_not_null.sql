@@ -0,0 +1,6 @@
+-- Posts stored before every post got a createdDate have none, and the keyset pages on (created_date, id)
+-- never reach them. They get the earliest created_date there is (the migration time when there is none),
+-- so they come first, in id order
+update posts set created_date = coalesce((select min(created_date) from posts), current_timestamp)
+where created_date is null;
+alter table posts alter column created_date set not null;
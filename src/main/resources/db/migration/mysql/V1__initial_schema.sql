@@ -0,0 +1,39 @@
+-- Schema as Hibernate created it with ddl-auto before the migrations (MySQL)
+-- Databases that were created by ddl-auto are baselined at this version (spring.flyway.baseline-on-migrate)
+create table users (
+    id bigint not null auto_increment,
+    name varchar(50) not null,
+    last_name varchar(50) not null,
+    age integer not null,
+    email varchar(254) not null,
+    password varchar(255) not null,
+    role enum ('ADMIN', 'USER'),
+    primary key (id),
+    constraint uk_users_email unique (email)
+) engine=InnoDB;
+
+-- Hibernate emulates the posts_seq sequence with a table on MySQL
+create table posts_seq (
+    next_val bigint
+) engine=InnoDB;
+insert into posts_seq values (1);
+
+create table posts (
+    id bigint not null,
+    title varchar(255),
+    content varchar(255),
+    created_date datetime(6),
+    last_modified_date datetime(6),
+    version bigint not null,
+    user_id bigint,
+    primary key (id),
+    constraint fk_posts_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table user_post_stats (
+    user_id bigint not null,
+    post_count bigint not null,
+    first_post_date datetime(6),
+    last_post_date datetime(6),
+    primary key (user_id)
+) engine=InnoDB;
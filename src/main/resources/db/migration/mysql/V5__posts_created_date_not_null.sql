@@ -0,0 +1,8 @@
+-- Posts stored before every post got a createdDate have none, and the keyset pages on (created_date, id)
+-- never reach them. They get the earliest created_date there is (the migration time when there is none),
+-- so they come first, in id order
+-- (MySQL cannot read posts in a subquery of an UPDATE on posts, hence the variable)
+set @first_created_date = (select min(created_date) from posts);
+update posts set created_date = coalesce(@first_created_date, now(6))
+where created_date is null;
+alter table posts modify created_date datetime(6) not null;
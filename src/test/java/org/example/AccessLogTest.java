@@ -0,0 +1,131 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.servlet.ServletException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccessLogTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Creates a log the way Spring would (injected values), without starting the writer thread
+    private AccessLog createLog(int bufferSize, AccessLog.WhenFull whenFull, DataSize maxFileSize) throws Exception {
+        AccessLog accessLog = new AccessLog();
+        ReflectionTestUtils.setField(accessLog, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(accessLog, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(accessLog, "enabled", true);
+        ReflectionTestUtils.setField(accessLog, "file", dir.resolve("access.log"));
+        ReflectionTestUtils.setField(accessLog, "maxFileSize", maxFileSize);
+        ReflectionTestUtils.setField(accessLog, "maxHistory", 2);
+        ReflectionTestUtils.setField(accessLog, "bufferSize", bufferSize);
+        ReflectionTestUtils.setField(accessLog, "batchSize", 100);
+        ReflectionTestUtils.setField(accessLog, "whenFull", whenFull);
+        accessLog.createBuffer();
+        return accessLog;
+    }
+
+    private static boolean append(AccessLog accessLog, int status) {
+        return accessLog.append(0, "req-" + status, "GET", "/users/{userId}/posts", status, 1500, "user@example.com", "127.0.0.1");
+    }
+
+    @Test
+    public void writesJsonLinesTest() throws Exception {
+        AccessLog accessLog = createLog(16, AccessLog.WhenFull.DROP, DataSize.ofMegabytes(1));
+        append(accessLog, 200);
+        accessLog.append(0, "req-401", "POST", "/posts", 401, 20, null, "10.0.0.1");
+        assertEquals(2, accessLog.drain(100));
+
+        List<String> lines = Files.readAllLines(dir.resolve("access.log"));
+        assertEquals(2, lines.size());
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals("1970-01-01T00:00:00Z", first.get("time").asText());
+        assertEquals("req-200", first.get("requestId").asText());
+        assertEquals("/users/{userId}/posts", first.get("route").asText());
+        assertEquals(200, first.get("status").asInt());
+        assertEquals(1500, first.get("latencyMicros").asLong());
+        assertEquals("user@example.com", first.get("principal").asText());
+        assertFalse(objectMapper.readTree(lines.get(1)).has("principal"));   // anonymous
+    }
+
+    @Test
+    public void dropsWhenFullTest() throws Exception {
+        AccessLog accessLog = createLog(4, AccessLog.WhenFull.DROP, DataSize.ofMegabytes(1));
+        for (int i = 0; i < 4; i++) assertTrue(append(accessLog, 200 + i));
+        // Nobody drained the ring - the request goes on without its log line
+        assertFalse(append(accessLog, 500));
+        assertEquals(1, meterRegistry.get("access.log.dropped").counter().count());
+
+        assertEquals(4, accessLog.drain(100));
+        assertTrue(append(accessLog, 201));   // slots are free again
+    }
+
+    @Test
+    public void exceptionLoggedAs500Test() throws Exception {
+        AccessLog accessLog = createLog(16, AccessLog.WhenFull.DROP, DataSize.ofMegabytes(1));
+        AccessLogFilter filter = new AccessLogFilter();
+        ReflectionTestUtils.setField(filter, "accessLog", accessLog);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/posts");
+        request.addHeader(AccessLogFilter.REQUEST_ID_HEADER, "req-failed");
+
+        // The error response is made by the container later - the filter must not log the 200 it still sees
+        assertThrows(ServletException.class, () -> filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> { throw new ServletException("boom"); }));
+        assertEquals(1, accessLog.drain(100));
+
+        JsonNode line = objectMapper.readTree(Files.readAllLines(dir.resolve("access.log")).get(0));
+        assertEquals("req-failed", line.get("requestId").asText());
+        assertEquals(500, line.get("status").asInt());
+    }
+
+    @Test
+    public void concurrentWritersTest() throws Exception {
+        AccessLog accessLog = createLog(64, AccessLog.WhenFull.BLOCK, DataSize.ofMegabytes(10));
+        ReflectionTestUtils.invokeMethod(accessLog, "startWriter");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 10_000; i++) executor.execute(() -> append(accessLog, 200));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        accessLog.shutdown();
+
+        // Blocking instead of dropping - every line is there, none torn
+        List<String> lines = Files.readAllLines(dir.resolve("access.log"));
+        assertEquals(10_000, lines.size());
+        for (String line : lines) assertEquals(200, objectMapper.readTree(line).get("status").asInt());
+    }
+
+    @Test
+    public void rollsOverTest() throws Exception {
+        AccessLog accessLog = createLog(16, AccessLog.WhenFull.DROP, DataSize.ofBytes(300));
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < 3; i++) append(accessLog, 200);
+            accessLog.drain(100);
+        }
+        // The current file plus max-history (2) older ones, the oldest were deleted
+        assertTrue(Files.exists(dir.resolve("access.log")));
+        assertTrue(Files.exists(dir.resolve("access.log.1")));
+        assertTrue(Files.exists(dir.resolve("access.log.2")));
+        assertFalse(Files.exists(dir.resolve("access.log.3")));
+        assertEquals(3, Files.readAllLines(dir.resolve("access.log.1")).size());
+    }
+}
@@ -0,0 +1,21 @@
+package org.example;
+
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+// MockMvc does not finish async requests (/auth/login, /auth/register return a CompletableFuture) by itself
+final class AsyncMockMvc {
+
+    private AsyncMockMvc() {
+    }
+
+    // Performs the request - when the controller went async, waits for its result and returns the final response
+    static ResultActions perform(MockMvc mockMvc, RequestBuilder request) throws Exception {
+        ResultActions actions = mockMvc.perform(request);
+        if (!actions.andReturn().getRequest().isAsyncStarted()) return actions;
+        return mockMvc.perform(asyncDispatch(actions.andReturn()));
+    }
+}
@@ -5,12 +5,16 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
-import org.springframework.test.annotation.Rollback;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.net.URI;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -18,16 +22,20 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @SpringBootTest
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
-@Transactional // ← Every test runs in a transaction
-@Rollback // ← Rollback after every test
+// Registration and login finish on the password hashing threads, outside a test transaction -
+// so no rollback, every test gets a fresh context (and database) instead
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
 public class AuthControllerMockMvcTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private UserRepository userRepository;
+
     @Test
     public void testRegister_Success() throws Exception{
         // Act & Assert
-        mockMvc.perform(post("/auth/register")
+        AsyncMockMvc.perform(mockMvc, post("/auth/register")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content("{\"name\":\"Test\",\"lastName\":\"User\",\"age\":25,\"password\":\"password123\",\"email\":\"test@example.com\"}"))
                 .andExpect(status().isOk())
@@ -38,12 +46,12 @@ public class AuthControllerMockMvcTest {
     @Test
     public void testRegister_EmailAlreadyExists() throws Exception {
         // Arrange - Register first user
-        mockMvc.perform(post("/auth/register")
+        AsyncMockMvc.perform(mockMvc, post("/auth/register")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content("{\"name\":\"Test1\",\"lastName\":\"User1\",\"age\":25,\"password\":\"password123\",\"email\":\"same@example.com\"}"));
 
         // Act & Assert - tries to register again with the same email
-        mockMvc.perform(post("/auth/register")
+        AsyncMockMvc.perform(mockMvc, post("/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"name\":\"Test2\",\"lastName\":\"User2\",\"age\":30,\"password\":\"password456\",\"email\":\"same@example.com\"}"))
                 .andExpect(status().isBadRequest())
@@ -53,7 +61,7 @@ public class AuthControllerMockMvcTest {
     @Test
     public void testRegister_InvalidData() throws Exception {
         // Act & Assert - validation errors
-        mockMvc.perform(post("/auth/register")
+        AsyncMockMvc.perform(mockMvc, post("/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"name\":\"\",\"lastName\":\"\",\"age\":15,\"password\":\"pass\",\"email\":\"invalid-email\"}"))
                 .andExpect(status().isBadRequest())
@@ -63,12 +71,12 @@ public class AuthControllerMockMvcTest {
     @Test
     public void testLogin_Success() throws Exception {
         // Arrange - Register user first
-        mockMvc.perform(post("/auth/register")
+        AsyncMockMvc.perform(mockMvc, post("/auth/register")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content("{\"name\":\"Test\",\"lastName\":\"User\",\"age\":25,\"password\":\"password123\",\"email\":\"login@example.com\"}"));
 
         // Act & Assert
-        mockMvc.perform(post("/auth/login")
+        AsyncMockMvc.perform(mockMvc, post("/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"email\":\"login@example.com\",\"password\":\"password123\"}"))
                 .andExpect(status().isOk())
@@ -78,12 +86,12 @@ public class AuthControllerMockMvcTest {
     @Test
     public void testLogin_wrongPassword() throws Exception{
         //Arrange
-        mockMvc.perform(post("/auth/register")
+        AsyncMockMvc.perform(mockMvc, post("/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"name\":\"Test\",\"lastName\":\"User\",\"age\":25,\"password\":\"password123\",\"email\":\"test@example.com\"}"));
 
         // Act & Assert
-        mockMvc.perform(post("/auth/login")
+        AsyncMockMvc.perform(mockMvc, post("/auth/login")
                 .contentType(MediaType.APPLICATION_JSON)
                     .content("{\"email\":\"test@example.com\",\"password\":\"wrongPassword\"}"))
                 .andExpect(status().isUnauthorized()) //status 401
@@ -93,15 +101,90 @@ public class AuthControllerMockMvcTest {
     @Test
     public void testLogin_UserNotFound() throws Exception{
         //Arrange
-        mockMvc.perform(post("/auth/register")
+        AsyncMockMvc.perform(mockMvc, post("/auth/register")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content("{\"name\":\"Test\",\"lastName\":\"User\",\"age\":25,\"password\":\"password123\",\"email\":\"test@example.com\"}"));
 
         // Act & Assert
-        mockMvc.perform(post("/auth/login")
+        AsyncMockMvc.perform(mockMvc, post("/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"email\":\"login@example.com\",\"password\":\"password123\"}"))
                 .andExpect(status().isUnauthorized()) //status 401
                 .andExpect(content().string("Invalid email or password"));
     }
+
+    @Test
+    public void testLogin_RehashesOldCost() throws Exception{
+        //Arrange - stored with cost 5, the test profile is configured for cost 4
+        User user = new User("Test", "User", 25, new BCryptPasswordEncoder(5).encode("password123"), "rehash@example.com");
+        userRepository.save(user);
+
+        // Act & Assert
+        AsyncMockMvc.perform(mockMvc, post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"rehash@example.com\",\"password\":\"password123\"}"))
+                .andExpect(status().isOk());
+        String hash = userRepository.findByEmail("rehash@example.com").get().getPassword();
+        assertTrue(hash.startsWith("$2a$04$"), "Expected the hash to be upgraded to cost 4: " + hash);
+        //The new hash still works
+        AsyncMockMvc.perform(mockMvc, post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"rehash@example.com\",\"password\":\"password123\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testLogin_ThrottledPerEmail() throws Exception{
+        // Act - the per-email bucket (5 per minute) runs out, whatever the password
+        for (int i = 0; i < 5; i++) {
+            AsyncMockMvc.perform(mockMvc, post("/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"email\":\"victim@example.com\",\"password\":\"guess" + i + "\"}"))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        // Assert - rejected before the user lookup, the email is matched case-insensitively
+        AsyncMockMvc.perform(mockMvc, post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"Victim@Example.com\",\"password\":\"guess\"}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @Test
+    public void testLogin_ReleasesRequestThread() throws Exception{
+        // Arrange
+        AsyncMockMvc.perform(mockMvc, post("/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Test\",\"lastName\":\"User\",\"age\":25,\"password\":\"password123\",\"email\":\"async@example.com\"}"));
+
+        // Act - the request goes async while BCrypt runs, the response comes with the async dispatch
+        MvcResult result = mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"async@example.com\",\"password\":\"password123\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(not(emptyString())));
+    }
+
+    @Test
+    public void testLogin_ThrottledOnEncodedPath() throws Exception{
+        // Act - /auth/%6Cogin is mapped to the login as well, so it has to count against the same bucket
+        for (int i = 0; i < 5; i++) {
+            AsyncMockMvc.perform(mockMvc, post(URI.create("/auth/%6Cogin"))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"email\":\"encoded@example.com\",\"password\":\"guess" + i + "\"}"))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        // Assert
+        AsyncMockMvc.perform(mockMvc, post(URI.create("/auth/%6Cogin"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"encoded@example.com\",\"password\":\"guess\"}"))
+                .andExpect(status().isTooManyRequests());
+    }
 }
@@ -0,0 +1,64 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "jpa.slow-query.threshold=0ms")  // every statement counts as slow
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class HibernateStatisticsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private String adminToken() {
+        return jwtUtil.generateToken("admin@example.com", Role.ADMIN);
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        mockMvc.perform(get("/users/age/{age}", 30).header("Authorization", "Bearer " + adminToken()));
+
+        mockMvc.perform(get("/actuator/hibernate").header("Authorization", "Bearer " + adminToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.enabled", is(true)))
+                .andExpect(jsonPath("$.queries.executions", greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$.queryStats[*].query", hasItem(containsString("u.age = :age"))))
+                .andExpect(jsonPath("$.secondLevelCache.regions[*].region", hasItem("users")))
+                .andExpect(jsonPath("$.slowQueries.entries[*].sql", hasItem(containsString("where u1_0.age=?"))));
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        mockMvc.perform(get("/users/age/{age}", 30).header("Authorization", "Bearer " + adminToken()));
+        mockMvc.perform(delete("/actuator/hibernate").header("Authorization", "Bearer " + adminToken()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/actuator/hibernate").header("Authorization", "Bearer " + adminToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.queries.executions", is(0)))
+                .andExpect(jsonPath("$.slowQueries.count", is(0)));
+    }
+
+    @Test
+    public void testAdminOnly() throws Exception {
+        mockMvc.perform(get("/actuator/hibernate")
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken("user@example.com", Role.USER)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/hibernate"))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -5,10 +5,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
-import org.springframework.test.annotation.Rollback;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.transaction.annotation.Transactional;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -16,9 +15,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @SpringBootTest
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
-@Transactional
-@Rollback
-
+// Registration and login finish on the password hashing threads, outside a test transaction -
+// so no rollback, every test gets a fresh context (and database) instead
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
 public class JwtAuthenticationFilterTest {
 
     @Autowired
@@ -30,7 +29,7 @@ public class JwtAuthenticationFilterTest {
     @Test
     public void testPublicEndpoint_Register_NoToken() throws Exception{
         // Arrange and Act
-        mockMvc.perform(post("/auth/register")
+        AsyncMockMvc.perform(mockMvc, post("/auth/register")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content("{\"name\":\"Test1\",\"lastName\":\"User1\",\"age\":25,\"password\":\"password123\",\"email\":\"same@example.com\"}"))
                 .andExpect(status().isOk())
@@ -0,0 +1,65 @@
+package org.example;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtUtilTest {
+
+    // Creates a JwtUtil the way Spring would (injected values + @PostConstruct)
+    private JwtUtil createJwtUtil(boolean cacheEnabled, SimpleMeterRegistry registry) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "SECRET_KEY", "mySecretKey123456789012345678901234567890");
+        ReflectionTestUtils.setField(jwtUtil, "cacheEnabled", cacheEnabled);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 100L);
+        ReflectionTestUtils.setField(jwtUtil, "meterRegistry", registry);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    @Test
+    public void verifyValidTokenTest(){
+        JwtUtil jwtUtil = createJwtUtil(false, null);
+        String token = jwtUtil.generateToken("test@example.com", Role.ADMIN);
+        // Check the claims come from a single verification
+        Optional<JwtClaims> claims = jwtUtil.verify(token);
+        assertTrue(claims.isPresent());
+        assertEquals("test@example.com", claims.get().email());
+        assertEquals("ADMIN", claims.get().role());
+        assertNotNull(claims.get().expiresAt());
+    }
+
+    @Test
+    public void verifyInvalidTokenTest(){
+        JwtUtil jwtUtil = createJwtUtil(true, null);
+        String token = jwtUtil.generateToken("test@example.com", Role.USER);
+        // Tampered signature and garbage are both rejected
+        assertTrue(jwtUtil.verify(token.substring(0, token.length() - 2) + "xx").isEmpty());
+        assertTrue(jwtUtil.verify("fake Token 1234").isEmpty());
+        assertFalse(jwtUtil.validateToken("fake Token 1234"));
+    }
+
+    @Test
+    public void verifyCachedTokenTest(){
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JwtUtil jwtUtil = createJwtUtil(true, registry);
+        String token = jwtUtil.generateToken("test@example.com", Role.USER);
+        // First call verifies the signature, second one is served from the cache
+        assertEquals("test@example.com", jwtUtil.verify(token).get().email());
+        assertEquals("test@example.com", jwtUtil.verify(token).get().email());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "jwt.claims").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "jwt.claims").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    public void extractEmailAndRoleTest(){
+        JwtUtil jwtUtil = createJwtUtil(true, null);
+        String token = jwtUtil.generateToken("test@example.com", Role.USER);
+        assertEquals("test@example.com", jwtUtil.extractEmail(token));
+        assertEquals("USER", jwtUtil.extractRole(token));
+    }
+}
@@ -0,0 +1,208 @@
+package org.example;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test - boots the app with the test profile on a random port, seeds users and posts
+ * over HTTP and drives a weighted mix of requests for a fixed time
+ *
+ * Not part of the normal build - run with: mvn -Pbenchmark test -Dtest=LoadTest
+ * Settings (system properties):
+ *   loadtest.concurrency  - parallel clients (default 32)
+ *   loadtest.duration     - measured time, e.g. 60s (default 20s), after loadtest.warmup (default 5s)
+ *   loadtest.mix          - weights, default login=5,posts=40,user-posts=15,search=25,create=15
+ *   loadtest.users / loadtest.posts - seeded data (default 500 / 5000)
+ * The report is written to target/loadtest/report.json and report.html
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "logging.level.org.example=WARN",
+                // every simulated client logs in from localhost
+                "security.login-throttle.enabled=false"})
+@ActiveProfiles("test")
+public class LoadTest {
+    private static final String PASSWORD = "loadtestPassword1";
+    private static final String[] TOPICS = {"spring", "java", "database", "cache", "security", "testing", "docker", "kotlin"};
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 32);
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("loadtest.duration", "20s"));
+    private static final Duration WARMUP = Duration.parse("PT" + System.getProperty("loadtest.warmup", "5s"));
+    private static final String MIX = System.getProperty("loadtest.mix", "login=5,posts=40,user-posts=15,search=25,create=15");
+    private static final int USERS = Integer.getInteger("loadtest.users", 500);
+    private static final int POSTS = Integer.getInteger("loadtest.posts", 5000);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    // Tokens of the seeded users, index = user id - 1
+    private final List<String> tokens = new ArrayList<>();
+
+    /** One kind of request in the mix */
+    private interface Operation {
+        HttpRequest next(ThreadLocalRandom random);
+    }
+
+    /** Latencies (microseconds) and errors of one endpoint */
+    static class Stats {
+        final Histogram latencies = new ConcurrentHistogram(3);
+        final LongAdder errors = new LongAdder();
+    }
+
+    @BeforeEach
+    public void seed() throws Exception {
+        String admin = jwtUtil.generateToken("admin@example.com", Role.ADMIN);
+        StringBuilder csv = new StringBuilder("name,lastName,age,email,password\n");
+        for (int i = 1; i <= USERS; i++) {
+            csv.append("Load,User,").append(18 + i % 80).append(",load").append(i).append("@example.com,").append(PASSWORD).append('\n');
+        }
+        send(request("/users/import", admin).header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv.toString())).build());
+
+        for (int i = 1; i <= USERS; i++) tokens.add(jwtUtil.generateToken("load" + i + "@example.com", Role.USER));
+        int perUser = Math.max(1, POSTS / USERS);
+        for (int user = 1; user <= USERS; user++) {
+            StringBuilder batch = new StringBuilder("[");
+            for (int i = 0; i < perUser; i++) {
+                if (i > 0) batch.append(',');
+                batch.append(postJson(user * perUser + i));
+            }
+            send(request("/users/" + user + "/posts/batch", tokens.get(user - 1))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(batch.append(']').toString())).build());
+        }
+    }
+
+    @Test
+    public void run() throws Exception {
+        Map<String, Operation> operations = operations();
+        Map<String, Integer> weights = parseMix(MIX);
+        List<String> wheel = new ArrayList<>();  // one slot per weight point
+        for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+            assertTrue(operations.containsKey(weight.getKey()), "Unknown operation in loadtest.mix: " + weight.getKey());
+            for (int i = 0; i < weight.getValue(); i++) wheel.add(weight.getKey());
+        }
+
+        drive(operations, wheel, WARMUP);  // results are dropped
+        long begin = System.nanoTime();
+        Map<String, Stats> stats = drive(operations, wheel, DURATION);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        LoadTestReport report = LoadTestReport.of(CONCURRENCY, seconds, weights, stats);
+        Path directory = Path.of("target", "loadtest");
+        report.write(directory);
+        System.out.println(report.toText());
+        System.out.println("Report written to " + directory.toAbsolutePath());
+
+        long errors = stats.values().stream().mapToLong(s -> s.errors.sum()).sum();
+        assertEquals(0, errors, "Some requests failed, see the report");
+    }
+
+    private Map<String, Operation> operations() {
+        Map<String, Operation> operations = new LinkedHashMap<>();
+        operations.put("login", random -> HttpRequest.newBuilder(uri("/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"load" + (1 + random.nextInt(USERS))
+                        + "@example.com\",\"password\":\"" + PASSWORD + "\"}"))
+                .build());
+        operations.put("posts", random -> HttpRequest.newBuilder(uri("/posts?limit=20")).build());
+        operations.put("user-posts", random -> HttpRequest.newBuilder(uri("/users/" + (1 + random.nextInt(USERS)) + "/posts")).build());
+        operations.put("search", random -> HttpRequest.newBuilder(uri("/posts/search/" + TOPICS[random.nextInt(TOPICS.length)])).build());
+        operations.put("create", random -> {
+            int user = 1 + random.nextInt(USERS);
+            return request("/users/" + user + "/posts", tokens.get(user - 1))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(postJson(random.nextInt(1_000_000))))
+                    .build();
+        });
+        return operations;
+    }
+
+    // CONCURRENCY clients, each sends one request after another until the time is up
+    private Map<String, Stats> drive(Map<String, Operation> operations, List<String> wheel, Duration duration) throws Exception {
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        for (String name : operations.keySet()) stats.put(name, new Stats());
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < CONCURRENCY; c++) {
+            futures.add(clients.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    String name = wheel.get(random.nextInt(wheel.size()));
+                    HttpRequest request = operations.get(name).next(random);
+                    Stats endpoint = stats.get(name);
+                    long begin = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 400) endpoint.errors.increment();
+                    } catch (Exception e) {
+                        endpoint.errors.increment();
+                    }
+                    endpoint.latencies.recordValue((System.nanoTime() - begin) / 1000);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) future.get();
+        clients.shutdown();
+        return stats;
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            weights.put(pair[0], Integer.parseInt(pair[1]));
+        }
+        return weights;
+    }
+
+    private static String postJson(int n) {
+        String topic = TOPICS[n % TOPICS.length];
+        return "{\"title\":\"Notes on " + topic + " " + n + "\",\"content\":\"Some thoughts about " + topic + " and more\"}";
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        return HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token);
+    }
+
+    private void send(HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "Seeding failed: " + response.body());
+    }
+}
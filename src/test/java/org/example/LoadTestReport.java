@@ -0,0 +1,87 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a LoadTest run - throughput and latency percentiles per endpoint, written as JSON and HTML
+ * Latencies are in milliseconds
+ */
+record LoadTestReport(Instant finishedAt, int concurrency, double seconds, Map<String, Integer> mix,
+                      List<Endpoint> endpoints) {
+    // Percentiles listed in the distribution of every endpoint
+    private static final double[] PERCENTILES = {50, 75, 90, 95, 99, 99.9, 99.99};
+
+    record Endpoint(String name, long requests, long errors, double throughput,
+                    double p50, double p99, double p999, double max, Map<String, Double> distribution) {}
+
+    static LoadTestReport of(int concurrency, double seconds, Map<String, Integer> mix, Map<String, LoadTest.Stats> stats) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (Map.Entry<String, LoadTest.Stats> entry : stats.entrySet()) {
+            Histogram latencies = entry.getValue().latencies;
+            Map<String, Double> distribution = new LinkedHashMap<>();
+            for (double percentile : PERCENTILES) distribution.put("p" + percentile, millis(latencies.getValueAtPercentile(percentile)));
+            endpoints.add(new Endpoint(entry.getKey(), latencies.getTotalCount(), entry.getValue().errors.sum(),
+                    latencies.getTotalCount() / seconds,
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+                    millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue()), distribution));
+        }
+        return new LoadTestReport(Instant.now(), concurrency, seconds, mix, endpoints);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(directory.resolve("report.json").toFile(), this);
+        Files.writeString(directory.resolve("report.html"), toHtml());
+    }
+
+    String toText() {
+        StringBuilder text = new StringBuilder(String.format("%n%-12s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (Endpoint e : endpoints) {
+            text.append(String.format("%-12s %9d %7d %9.0f %9.2f %9.2f %9.2f %9.2f%n",
+                    e.name(), e.requests(), e.errors(), e.throughput(), e.p50(), e.p99(), e.p999(), e.max()));
+        }
+        return text.toString();
+    }
+
+    String toHtml() {
+        StringBuilder html = new StringBuilder("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Load test report</title>\n"
+                + "<style>body{font-family:sans-serif}table{border-collapse:collapse}td,th{border:1px solid #ccc;padding:4px 8px;text-align:right}"
+                + "th:first-child,td:first-child{text-align:left}.bar{background:#4a90d9;height:10px}</style></head><body>\n");
+        html.append("<h1>Load test report</h1>\n<p>").append(finishedAt).append(" - ").append(concurrency)
+                .append(" clients, ").append(String.format("%.1f", seconds)).append(" s, mix ").append(mix).append("</p>\n");
+        html.append("<h2>Throughput and latency</h2>\n<table><tr><th>endpoint</th><th>requests</th><th>errors</th>"
+                + "<th>req/s</th><th>p50 ms</th><th>p99 ms</th><th>p999 ms</th><th>max ms</th></tr>\n");
+        for (Endpoint e : endpoints) {
+            html.append(String.format("<tr><td>%s</td><td>%d</td><td>%d</td><td>%.0f</td><td>%.2f</td><td>%.2f</td><td>%.2f</td><td>%.2f</td></tr>%n",
+                    e.name(), e.requests(), e.errors(), e.throughput(), e.p50(), e.p99(), e.p999(), e.max()));
+        }
+        html.append("</table>\n<h2>Latency distribution</h2>\n");
+        for (Endpoint e : endpoints) {
+            double scale = Math.max(e.max(), 0.001);
+            html.append("<h3>").append(e.name()).append("</h3>\n<table>\n");
+            for (Map.Entry<String, Double> point : e.distribution().entrySet()) {
+                html.append(String.format("<tr><td>%s</td><td>%.2f ms</td><td style=\"width:400px;text-align:left\"><div class=\"bar\" style=\"width:%.0f%%\"></div></td></tr>%n",
+                        point.getKey(), point.getValue(), 100 * point.getValue() / scale));
+            }
+            html.append("</table>\n");
+        }
+        return html.append("</body></html>\n").toString();
+    }
+}
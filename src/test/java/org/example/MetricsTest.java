@@ -0,0 +1,78 @@
+package org.example;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class MetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testRepositoryTimers() throws Exception {
+        mockMvc.perform(get("/users/{id}", 1L)
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken("admin@example.com", Role.ADMIN)))
+                .andExpect(status().isNotFound());
+
+        Timer timer = meterRegistry.get("spring.data.repository.invocations")
+                .tags("repository", "UserRepository", "method", "findById", "state", "SUCCESS")
+                .timer();
+        assertEquals(1, timer.count());
+        // SLO buckets and percentiles from application.properties
+        assertEquals(5, timer.takeSnapshot().histogramCounts().length);
+        assertEquals(3, timer.takeSnapshot().percentileValues().length);
+    }
+
+    @Test
+    public void testJwtFilterTimers() throws Exception {
+        mockMvc.perform(get("/users")
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken("admin@example.com", Role.ADMIN)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users").header("Authorization", "Bearer broken"))
+                .andExpect(status().isUnauthorized());
+
+        assertEquals(1, meterRegistry.get("jwt.filter").tag("outcome", "authenticated").timer().count());
+        assertEquals(1, meterRegistry.get("jwt.filter").tag("outcome", "invalid").timer().count());
+        assertEquals(1, meterRegistry.get("jwt.filter.stage").tags("stage", "verify", "outcome", "valid").timer().count());
+        assertEquals(1, meterRegistry.get("jwt.filter.stage").tags("stage", "verify", "outcome", "invalid").timer().count());
+        assertEquals(1, meterRegistry.get("jwt.filter.stage").tags("stage", "authenticate", "outcome", "success").timer().count());
+        assertEquals(5, meterRegistry.get("jwt.filter").tag("outcome", "authenticated").timer().takeSnapshot().histogramCounts().length);
+    }
+
+    @Test
+    public void testPasswordHashTimers() throws Exception {
+        AsyncMockMvc.perform(mockMvc, post("/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Test\",\"lastName\":\"User\",\"age\":25,\"password\":\"password123\",\"email\":\"test@example.com\"}"));
+        AsyncMockMvc.perform(mockMvc, post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"test@example.com\",\"password\":\"wrongPassword\"}"))
+                .andExpect(status().isUnauthorized());
+
+        assertEquals(1, meterRegistry.get("password.hash").tags("operation", "encode", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("password.hash").tags("operation", "matches", "outcome", "mismatch").timer().count());
+        assertEquals(2, meterRegistry.get("password.hash.wait").timer().count());
+    }
+}
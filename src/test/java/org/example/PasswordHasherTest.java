@@ -0,0 +1,107 @@
+package org.example;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Creates a hasher the way Spring would (injected values + @PostConstruct)
+    private PasswordHasher createHasher(PasswordEncoder encoder, int threads, int queueCapacity) {
+        PasswordHasher hasher = new PasswordHasher();
+        ReflectionTestUtils.setField(hasher, "passwordEncoder", encoder);
+        ReflectionTestUtils.setField(hasher, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(hasher, "strength", 4);
+        ReflectionTestUtils.setField(hasher, "threads", threads);
+        ReflectionTestUtils.setField(hasher, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(hasher, "timeout", Duration.ofSeconds(5));
+        hasher.init();
+        return hasher;
+    }
+
+    @Test
+    public void encodeAndMatchesTest(){
+        PasswordHasher hasher = createHasher(new BCryptPasswordEncoder(4), 2, 10);
+        String hash = hasher.encode("password123").join();
+        assertTrue(hasher.matches("password123", hash).join());
+        assertFalse(hasher.matches("wrongPassword", hash).join());
+        assertEquals(1, meterRegistry.get("password.hash").tags("operation", "encode", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("password.hash").tags("operation", "matches", "outcome", "match").timer().count());
+        assertEquals(1, meterRegistry.get("password.hash").tags("operation", "matches", "outcome", "mismatch").timer().count());
+    }
+
+    @Test
+    public void needsRehashTest(){
+        PasswordHasher hasher = createHasher(new BCryptPasswordEncoder(4), 1, 1);
+        assertFalse(hasher.needsRehash(new BCryptPasswordEncoder(4).encode("password123")));
+        assertTrue(hasher.needsRehash(new BCryptPasswordEncoder(5).encode("password123")));
+        assertFalse(hasher.needsRehash("not a bcrypt hash"));
+        assertFalse(hasher.needsRehash(null));
+    }
+
+    // Encoder that blocks until released, so the single thread and the queue stay busy
+    private static PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+        return new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+    }
+
+    @Test
+    public void saturatedPoolFailsFastTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordHasher hasher = createHasher(blockingEncoder(started, release), 1, 1);
+        // The caller gets the futures right away, nothing waits for the hashes
+        CompletableFuture<String> running = hasher.encode("first");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = hasher.encode("second");
+        assertFalse(running.isDone());
+
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> hasher.encode("third").get());
+        assertInstanceOf(PasswordHashingUnavailableException.class, rejected.getCause());
+        assertEquals(1, meterRegistry.get("password.hash.rejected").counter().count());
+
+        release.countDown();
+        assertNotNull(running.get(5, TimeUnit.SECONDS));
+        assertNotNull(queued.get(5, TimeUnit.SECONDS));
+        hasher.shutdown();
+    }
+
+    @Test
+    public void timeoutFailsTheFutureTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordHasher hasher = createHasher(blockingEncoder(started, release), 1, 1);
+        ReflectionTestUtils.setField(hasher, "timeout", Duration.ofMillis(100));
+
+        CompletableFuture<String> hashing = hasher.encode("first");
+        ExecutionException timedOut = assertThrows(ExecutionException.class, () -> hashing.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(PasswordHashingUnavailableException.class, timedOut.getCause());
+        // Counted right after the future failed
+        for (int i = 0; i < 100 && meterRegistry.get("password.hash.rejected").counter().count() < 1; i++) Thread.sleep(10);
+        assertEquals(1, meterRegistry.get("password.hash.rejected").counter().count());
+        release.countDown();
+        hasher.shutdown();
+    }
+}
@@ -9,10 +9,18 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -237,4 +245,447 @@ public class PostControllerMockMvcTest {
                         .header("Authorization", "Bearer " + token))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    public void testReturnAllPost_Paged()throws Exception{
+        String token = createValidToken();
+        //Create user (will get ID=1)
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Test name\",\"lastName\": \"Test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test@example.com\"}"));
+        //Create 3 posts for user ID=1
+        for (int i = 1; i <= 3; i++) {
+            mockMvc.perform(post("/users/{userId}/posts", 1L)
+                    .header("Authorization", "Bearer " + token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"title\":\"test " + i + " title\",\"content\":\"test " + i + " content\"}"));
+        }
+        //first page has 2 posts and a cursor for the next page
+        MvcResult firstPage = mockMvc.perform(get("/posts").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].title", is("test 1 title")))
+                .andExpect(jsonPath("$[1].title", is("test 2 title")))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn();
+        //second page has the last post and no cursor
+        mockMvc.perform(get("/posts").param("limit", "2")
+                        .param("cursor", firstPage.getResponse().getHeader("X-Next-Cursor")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title", is("test 3 title")))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    public void testUserAllPosts_Paged()throws Exception{
+        String token = createValidToken();
+        //Create user (will get ID=1)
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Test name\",\"lastName\": \"Test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test@example.com\"}"));
+        //Create 2 posts for user ID=1
+        for (int i = 1; i <= 2; i++) {
+            mockMvc.perform(post("/users/{userId}/posts", 1L)
+                    .header("Authorization", "Bearer " + token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"title\":\"test " + i + " title\",\"content\":\"test " + i + " content\"}"));
+        }
+        MvcResult firstPage = mockMvc.perform(get("/users/{userId}/posts", 1L).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title", is("test 1 title")))
+                .andReturn();
+        mockMvc.perform(get("/users/{userId}/posts", 1L).param("limit", "1")
+                        .param("cursor", firstPage.getResponse().getHeader("X-Next-Cursor")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title", is("test 2 title")))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    public void testReturnAllPost_InvalidCursor()throws Exception{
+        mockMvc.perform(get("/posts").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testExportPosts()throws Exception{
+        String token = createValidToken();
+        //Create user (will get ID=1)
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Test name\",\"lastName\": \"Test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test@example.com\"}"));
+        //Create 2 posts for user ID=1
+        for (int i = 1; i <= 2; i++) {
+            mockMvc.perform(post("/users/{userId}/posts", 1L)
+                    .header("Authorization", "Bearer " + token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"title\":\"test " + i + " title\",\"content\":\"test " + i + " content\"}"));
+        }
+        //one JSON document per line
+        String body = mockMvc.perform(get("/posts/export")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"title\":\"test 1 title\""));
+        assertTrue(lines[1].contains("\"title\":\"test 2 title\""));
+    }
+
+    @Test
+    public void testExportPosts_NoToken()throws Exception{
+        mockMvc.perform(get("/posts/export"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void testReturnAllPost_CacheInvalidatedByNewPost()throws Exception{
+        String token = createValidToken();
+        //Create user (will get ID=1)
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Test name\",\"lastName\": \"Test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test@example.com\"}"));
+        //the empty listing gets cached
+        mockMvc.perform(get("/posts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        //a new post drops the cached listings
+        mockMvc.perform(post("/users/{userId}/posts", 1L)
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"test 1 title\",\"content\":\"test 1 content\"}"));
+        mockMvc.perform(get("/posts"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title", is("test 1 title")));
+    }
+
+    @Test
+    public void testNewPostsBatch()throws Exception{
+        String token = createValidToken();
+        //Create user (will get ID=1)
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Test name\",\"lastName\": \"Test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test@example.com\"}"));
+        //Second post has no title and is rejected, the others are created
+        mockMvc.perform(post("/users/{userId}/posts/batch", 1L)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"title\":\"batch 1\",\"content\":\"content 1\"},{\"content\":\"no title\"},{\"title\":\"batch 3\",\"content\":\"content 3\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].status", is("CREATED")))
+                .andExpect(jsonPath("$[1].status", is("REJECTED")))
+                .andExpect(jsonPath("$[1].error", is("Title cant be blank")))
+                .andExpect(jsonPath("$[2].status", is("CREATED")));
+        mockMvc.perform(get("/users/{userId}/posts", 1L)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].title", is("batch 1")))
+                .andExpect(jsonPath("$[1].title", is("batch 3")));
+        //Batch posts are searchable right away
+        mockMvc.perform(get("/posts/search/{keyword}", "batch"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    public void testNewPostsBatch_ForOtherUserForbidden()throws Exception{
+        String token = createValidToken();
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Test name\",\"lastName\": \"Test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test@example.com\"}"));
+        String userToken = jwtUtil.generateToken("other@example.com", Role.USER);
+        mockMvc.perform(post("/users/{userId}/posts/batch", 1L)
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"title\":\"batch 1\",\"content\":\"content 1\"}]"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void testNewPostsBatch_Empty()throws Exception{
+        mockMvc.perform(post("/users/{userId}/posts/batch", 1L)
+                        .header("Authorization", "Bearer " + createValidToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testReturnAllPost_NotModified()throws Exception{
+        String token = createValidToken();
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Test name\",\"lastName\": \"Test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test@example.com\"}"));
+        mockMvc.perform(post("/users/{userId}/posts", 1L)
+                .header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"test 1 title\",\"content\":\"test 1 content\"}"));
+
+        MvcResult first = mockMvc.perform(get("/posts"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+        String lastModified = first.getResponse().getHeader("Last-Modified");
+
+        //Nothing changed - 304 without a body
+        mockMvc.perform(get("/posts").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/posts").header("If-Modified-Since", lastModified))
+                .andExpect(status().isNotModified());
+        //Other page size - other representation, other ETag
+        mockMvc.perform(get("/posts").param("limit", "5").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+
+        //New post - new ETag and the full body again
+        mockMvc.perform(post("/users/{userId}/posts", 1L)
+                .header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"test 2 title\",\"content\":\"test 2 content\"}"));
+        MvcResult changed = mockMvc.perform(get("/posts").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andReturn();
+        assertTrue(!etag.equals(changed.getResponse().getHeader("ETag")));
+    }
+
+    @Test
+    public void testReturnAllPost_ModifiedAfterDelete()throws Exception{
+        String token = createValidToken();
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Test name\",\"lastName\": \"Test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test@example.com\"}"));
+        mockMvc.perform(post("/users/{userId}/posts", 1L)
+                .header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"test 1 title\",\"content\":\"test 1 content\"}"));
+        String etag = mockMvc.perform(get("/posts"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        String userEtag = mockMvc.perform(get("/users/{userId}/posts", 1L))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        //Deleting the user removes the post - both listings changed
+        mockMvc.perform(delete("/users/{id}", 1L).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/posts").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/users/{userId}/posts", 1L).header("If-None-Match", userEtag))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testUserAllPosts_NotModifiedAfterOtherUserPosts()throws Exception{
+        String token = createValidToken();
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Test name\",\"lastName\": \"Test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test@example.com\"}"));
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Test 2 name\",\"lastName\": \"Test 2 last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test2@example.com\"}"));
+        mockMvc.perform(post("/users/{userId}/posts", 1L)
+                .header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"test 1 title\",\"content\":\"test 1 content\"}"));
+        String etag = mockMvc.perform(get("/users/{userId}/posts", 1L))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        //A post of user 2 does not change the listing of user 1
+        mockMvc.perform(post("/users/{userId}/posts", 2L)
+                .header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"test 2 title\",\"content\":\"test 2 content\"}"));
+        mockMvc.perform(get("/users/{userId}/posts", 1L).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void testGetPost()throws Exception{
+        String token = createValidToken();
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Test name\",\"lastName\": \"Test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test@example.com\"}"));
+        String body = mockMvc.perform(post("/users/{userId}/posts", 1L)
+                .header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"test 1 title\",\"content\":\"test 1 content\"}"))
+                .andReturn().getResponse().getContentAsString();
+        long id = Long.parseLong(body.replaceAll(".*\"id\":(\\d+).*", "$1"));
+
+        String etag = mockMvc.perform(get("/posts/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title", is("test 1 title")))
+                .andExpect(jsonPath("$.version", is(0)))
+                .andExpect(header().string("ETag", "\"" + id + "-0\""))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/posts/{id}", id).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/posts/{id}", 999L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testUserStats()throws Exception{
+        String token = createValidToken();
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Test name\",\"lastName\": \"Test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test@example.com\"}"));
+        mockMvc.perform(get("/users/{userId}/stats", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.postCount", is(0)))
+                .andExpect(jsonPath("$.firstPostDate").doesNotExist());
+
+        mockMvc.perform(post("/users/{userId}/posts", 1L)
+                .header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"test 1 title\",\"content\":\"test 1 content\"}"));
+        mockMvc.perform(post("/users/{userId}/posts/batch", 1L)
+                .header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"title\":\"batch 1\"},{\"title\":\"\"},{\"title\":\"batch 2\"}]"));
+        mockMvc.perform(get("/users/{userId}/stats", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId", is(1)))
+                .andExpect(jsonPath("$.postCount", is(3)))   // the blank title was rejected
+                .andExpect(jsonPath("$.firstPostDate").exists())
+                .andExpect(jsonPath("$.lastPostDate").exists());
+
+        mockMvc.perform(delete("/users/{id}", 1L).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/{userId}/stats", 1L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testPostChanges()throws Exception{
+        String token = createValidToken();
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Test name\",\"lastName\": \"Test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test@example.com\"}"));
+        mockMvc.perform(post("/users/{userId}/posts/batch", 1L)
+                .header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"title\":\"post 1\"},{\"title\":\"post 2\"},{\"title\":\"post 3\"}]"));
+
+        //First sync in pages of 2
+        String firstPage = mockMvc.perform(get("/posts/changes").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.upserted", hasSize(2)))
+                .andExpect(jsonPath("$.upserted[0].title", is("post 1")))
+                .andExpect(jsonPath("$.hasMore", is(true)))
+                .andReturn().getResponse().getContentAsString();
+        String syncToken = mockMvc.perform(get("/posts/changes").param("limit", "2").param("since", nextToken(firstPage)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.upserted", hasSize(1)))
+                .andExpect(jsonPath("$.upserted[0].title", is("post 3")))
+                .andExpect(jsonPath("$.hasMore", is(false)))
+                .andReturn().getResponse().getContentAsString();
+
+        //Nothing changed
+        mockMvc.perform(get("/posts/changes").param("since", nextToken(syncToken)))
+                .andExpect(jsonPath("$.upserted", hasSize(0)))
+                .andExpect(jsonPath("$.deleted", hasSize(0)));
+
+        //A new post, then the user is deleted - the three old posts and the new one come back as deleted
+        mockMvc.perform(post("/users/{userId}/posts", 1L)
+                .header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"post 4\"}"));
+        mockMvc.perform(get("/posts/changes").param("since", nextToken(syncToken)))
+                .andExpect(jsonPath("$.upserted[*].title", contains("post 4")));
+        mockMvc.perform(delete("/users/{id}", 1L).header("Authorization", "Bearer " + token));
+        mockMvc.perform(get("/posts/changes").param("since", nextToken(syncToken)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.upserted", hasSize(0)))
+                .andExpect(jsonPath("$.deleted", hasSize(4)));
+
+        mockMvc.perform(get("/posts/changes").param("since", "not-a-token"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testRequestId() throws Exception {
+        // A request id from the client (or proxy) is kept, otherwise one is made up
+        mockMvc.perform(get("/posts").header("X-Request-Id", "client-id-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Request-Id", "client-id-1"));
+        mockMvc.perform(get("/posts").header("X-Request-Id", "not a valid id!"))
+                .andExpect(header().string("X-Request-Id", matchesPattern("[0-9a-f]{16}")));
+    }
+
+    @Test
+    public void testQueryPosts()throws Exception{
+        String token = createValidToken();
+        //Create users ID=1 and ID=2
+        for (int i = 1; i <= 2; i++) {
+            mockMvc.perform(post("/users")
+                    .header("Authorization", "Bearer " + token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"name\": \"Test name\",\"lastName\": \"Test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test" + i + "@example.com\"}"));
+        }
+        String[][] posts = {{"1", "alpha 1"}, {"1", "beta 2"}, {"1", "alpha_3"}, {"2", "alpha 4"}};
+        for (String[] p : posts) {
+            mockMvc.perform(post("/users/{userId}/posts", Long.parseLong(p[0]))
+                    .header("Authorization", "Bearer " + token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"title\":\"" + p[1] + "\",\"content\":\"content\"}"));
+        }
+        //author + keyword, newest first, one per page - no total unless asked for
+        mockMvc.perform(get("/posts/query").param("userId", "1").param("keyword", "alpha")
+                        .param("sort", "createdDate,desc").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].title", is("alpha_3")))
+                .andExpect(jsonPath("$.hasNext", is(true)))
+                .andExpect(jsonPath("$.total").doesNotExist());
+        mockMvc.perform(get("/posts/query").param("userId", "1").param("keyword", "alpha")
+                        .param("sort", "createdDate,desc").param("limit", "1").param("page", "1").param("count", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", contains("alpha 1")))
+                .andExpect(jsonPath("$.hasNext", is(false)))
+                .andExpect(jsonPath("$.total", is(2)));
+        mockMvc.perform(get("/posts/query").param("keyword", "alpha").param("limit", "2").param("count", "true"))
+                .andExpect(jsonPath("$.content[*].title", contains("alpha 1", "alpha_3")))
+                .andExpect(jsonPath("$.hasNext", is(true)))
+                .andExpect(jsonPath("$.total", is(3)));
+        //"_" is matched literally, not as a LIKE wildcard
+        mockMvc.perform(get("/posts/query").param("keyword", "_"))
+                .andExpect(jsonPath("$.content[*].title", contains("alpha_3")));
+        mockMvc.perform(get("/posts/query").param("title", "alpha 4").param("sort", "title,desc"))
+                .andExpect(jsonPath("$.content[*].title", contains("alpha 4")));
+        mockMvc.perform(get("/posts/query").param("from", "2999-01-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(0)))
+                .andExpect(jsonPath("$.hasNext", is(false)));
+        mockMvc.perform(get("/posts/query").param("to", "2999-01-01T00:00:00").param("sort", "title"))
+                .andExpect(jsonPath("$.content[*].title", contains("alpha 1", "alpha 4", "alpha_3", "beta 2")));
+
+        mockMvc.perform(get("/posts/query").param("sort", "password"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/posts/query").param("sort", "title,sideways"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/posts/query").param("from", "yesterday"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static String nextToken(String body) {
+        return body.replaceAll(".*\"nextToken\":\"([^\"]+)\".*", "$1");
+    }
 }
@@ -0,0 +1,129 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Real server - SSE needs an async servlet request that stays open
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@Timeout(30)  // reading a stream that never gets the event would block forever
+public class PostFeedStreamTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private PostFeed postFeed;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private String url(String path) {
+        return "http://localhost:" + port + path;
+    }
+
+    private void postJson(String path, String json) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url(path)))
+                .header("Authorization", "Bearer " + jwtUtil.generateToken("admin@example.com", Role.ADMIN))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void createUserAndPost(String title) throws Exception {
+        postJson("/users", "{\"name\": \"Test name\",\"lastName\": \"Test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test@example.com\"}");
+        postJson("/users/1/posts", "{\"title\":\"" + title + "\",\"content\":\"content\"}");
+    }
+
+    // Opens the stream and waits until the feed has registered it
+    private Iterator<String> openStream(String path, String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url(path))).header("Accept", "text/event-stream");
+        if (lastEventId != null) request.header("Last-Event-ID", lastEventId);
+        CompletableFuture<HttpResponse<Stream<String>>> response = client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofLines());
+        HttpResponse<Stream<String>> connected = response.get(5, TimeUnit.SECONDS);
+        assertEquals(200, connected.statusCode());
+        return connected.body().iterator();
+    }
+
+    // Reads lines until the data line of the next post event
+    private String nextPostData(Iterator<String> lines) {
+        boolean postEvent = false;
+        while (lines.hasNext()) {
+            String line = lines.next();
+            if (line.equals("event:" + PostFeed.EVENT_POST)) postEvent = true;
+            if (postEvent && line.startsWith("data:")) return line;
+        }
+        return null;
+    }
+
+    @Test
+    public void testLiveFeed() throws Exception {
+        createUserAndPost("before subscribing");
+        Iterator<String> global = openStream("/posts/stream", null);
+        Iterator<String> user = openStream("/users/1/posts/stream", null);
+        assertEquals(2, postFeed.getSubscriberCount());
+
+        postJson("/users/1/posts", "{\"title\":\"live post\",\"content\":\"content\"}");
+        assertTrue(nextPostData(global).contains("\"title\":\"live post\""));
+        assertTrue(nextPostData(user).contains("\"title\":\"live post\""));
+    }
+
+    @Test
+    public void testResumeWithLastEventId() throws Exception {
+        createUserAndPost("seen");
+        postJson("/users/1/posts", "{\"title\":\"missed\",\"content\":\"content\"}");
+        List<Post> posts = postRepository.findAll();
+        long seen = posts.stream().map(Post::getChangeSeq).min(Comparator.naturalOrder()).orElseThrow();
+
+        Iterator<String> stream = openStream("/posts/stream", Long.toString(seen));
+        assertTrue(nextPostData(stream).contains("\"title\":\"missed\""));
+    }
+
+    @Test
+    public void testUserReplayOnlyCountsPostsOfTheUser() throws Exception {
+        ReflectionTestUtils.setField(postFeed, "replayMax", 1);
+        createUserAndPost("seen");
+        long seen = postRepository.findAll().get(0).getChangeSeq();
+        // More posts of another user than are replayed - the global feed would have to resync
+        postJson("/users", "{\"name\": \"Other\",\"lastName\": \"User\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"other@example.com\"}");
+        postJson("/users/2/posts", "{\"title\":\"other 1\",\"content\":\"content\"}");
+        postJson("/users/2/posts", "{\"title\":\"other 2\",\"content\":\"content\"}");
+        postJson("/users/1/posts", "{\"title\":\"missed\",\"content\":\"content\"}");
+
+        Iterator<String> stream = openStream("/users/1/posts/stream", Long.toString(seen));
+        assertTrue(nextPostData(stream).contains("\"title\":\"missed\""));
+    }
+
+    @Test
+    public void testUnknownUser() throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url("/users/999/posts/stream"))).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, response.statusCode());
+    }
+}
@@ -0,0 +1,201 @@
+package org.example;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostFeedTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PostFeed feed;
+
+    // Emitter that keeps what was sent (posts by title) and can hold the sender like a slow client
+    private static class RecordingEmitter extends SseEmitter {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch release;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            StringBuilder event = new StringBuilder();
+            for (DataWithMediaType data : builder.build()) {
+                event.append(data.getData() instanceof Post post ? post.getTitle() : data.getData());
+            }
+            events.add(event.toString());
+        }
+    }
+
+    // Client that takes the first event (retry) and then stops reading - every later send blocks until released
+    private static class StalledEmitter extends SseEmitter {
+        final CountDownLatch blocked;
+        final CountDownLatch release;
+        private boolean first = true;
+
+        StalledEmitter(CountDownLatch blocked, CountDownLatch release) {
+            this.blocked = blocked;
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (first) {
+                first = false;
+                return;
+            }
+            blocked.countDown();
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private PostFeed createFeed(int bufferSize) {
+        return createFeed(bufferSize, Duration.ofMinutes(1));
+    }
+
+    // Creates a feed the way Spring would (injected values + @PostConstruct)
+    private PostFeed createFeed(int bufferSize, Duration sendTimeout) {
+        PostFeed postFeed = new PostFeed();
+        ReflectionTestUtils.setField(postFeed, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(postFeed, "maxSubscribers", 10);
+        ReflectionTestUtils.setField(postFeed, "bufferSize", bufferSize);
+        ReflectionTestUtils.setField(postFeed, "senderThreads", 2);
+        ReflectionTestUtils.setField(postFeed, "heartbeat", Duration.ofHours(1));
+        ReflectionTestUtils.setField(postFeed, "timeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(postFeed, "replayMax", 10);
+        ReflectionTestUtils.setField(postFeed, "sendTimeout", sendTimeout);
+        postFeed.init();
+        return postFeed;
+    }
+
+    private static Post post(long userId, long changeSeq, String title) {
+        User user = new User();
+        user.setId(userId);
+        Post post = new Post(title, "content", user);
+        post.setChangeSeq(changeSeq);
+        return post;
+    }
+
+    private static void awaitEvents(RecordingEmitter emitter, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (emitter.events.size() < count && System.currentTimeMillis() < deadline) Thread.sleep(10);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        feed.shutdown();
+    }
+
+    @Test
+    public void publishesToMatchingSubscribersTest() throws Exception {
+        feed = createFeed(10);
+        RecordingEmitter all = new RecordingEmitter(new CountDownLatch(0));
+        RecordingEmitter user1 = new RecordingEmitter(new CountDownLatch(0));
+        RecordingEmitter user2 = new RecordingEmitter(new CountDownLatch(0));
+        feed.add(all, null, null);
+        feed.add(user1, 1L, null);
+        feed.add(user2, 2L, null);
+
+        feed.publish(post(1, 1, "first"));
+        feed.publish(post(1, 2, "second"));
+        awaitEvents(all, 3);
+        awaitEvents(user1, 3);
+
+        // Every stream starts with the reconnect delay
+        assertEquals("retry:" + PostFeed.RECONNECT_MILLIS + "\n\n", all.events.get(0));
+        assertEquals(3, all.events.size());
+        assertTrue(all.events.get(1).contains("id:1\nevent:post\n"));
+        assertTrue(all.events.get(1).contains("first"));
+        assertTrue(all.events.get(2).contains("second"));   // in publish order
+        assertEquals(3, user1.events.size());
+        assertEquals(1, user2.events.size());
+    }
+
+    @Test
+    public void slowSubscriberIsEvictedTest() throws Exception {
+        feed = createFeed(2);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        RecordingEmitter fast = new RecordingEmitter(new CountDownLatch(0));
+        new Thread(() -> feed.add(slow, null, null)).start();  // hangs in sending the first event
+        Thread.sleep(100);
+        feed.add(fast, null, null);
+
+        feed.publish(post(1, 1, "post 1"));   // buffered
+        feed.publish(post(1, 2, "post 2"));   // buffered - the buffer is full
+        awaitEvents(fast, 3);                 // the fast client keeps up
+        feed.publish(post(1, 3, "post 3"));   // does not fit - the slow client is dropped, publish does not wait
+
+        assertEquals(1, feed.getSubscriberCount());
+        assertEquals(1, meterRegistry.get("posts.feed.evicted").counter().count());
+        awaitEvents(fast, 4);
+        assertEquals(4, fast.events.size());   // retry + 3 posts
+        release.countDown();
+    }
+
+    @Test
+    public void stalledSubscriberIsEvictedTest() throws Exception {
+        feed = createFeed(10, Duration.ofMillis(200));
+        CountDownLatch blocked = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        // Two clients that stopped reading hold both sender threads
+        feed.add(new StalledEmitter(blocked, release), null, null);
+        feed.add(new StalledEmitter(blocked, release), null, null);
+        feed.publish(post(1, 1, "post 1"));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+        RecordingEmitter healthy = new RecordingEmitter(new CountDownLatch(0));
+        feed.add(healthy, null, null);
+        feed.publish(post(1, 2, "post 2"));
+        awaitEvents(healthy, 2);
+        // Delivered once the blocked sends ran past their deadline - the stalled clients are gone
+        assertEquals(2, healthy.events.size());
+        assertTrue(healthy.events.get(1).contains("post 2"));
+        assertEquals(1, feed.getSubscriberCount());
+        assertEquals(2, meterRegistry.get("posts.feed.evicted").counter().count());
+
+        release.countDown();
+        // The blocked senders return and the pool shrinks back
+        long deadline = System.currentTimeMillis() + 5000;
+        while (feed.getSenderThreads() > 2 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertEquals(2, feed.getSenderThreads());
+    }
+
+    @Test
+    public void heartbeatTest() throws Exception {
+        feed = createFeed(10);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        feed.add(new StalledEmitter(blocked, release), null, null);
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0));
+        feed.add(emitter, null, null);
+
+        // Written by the senders - the client that does not read only blocks its own sender
+        feed.sendHeartbeats();
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        awaitEvents(emitter, 2);
+        assertEquals(":heartbeat\n\n", emitter.events.get(1));
+        release.countDown();
+    }
+}
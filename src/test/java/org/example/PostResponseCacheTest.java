@@ -0,0 +1,73 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PostResponseCacheTest {
+
+    // Creates a cache the way Spring would (injected values + @PostConstruct)
+    private PostResponseCache createCache(Duration freshFor) {
+        PostResponseCache cache = new PostResponseCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxBytes", 1024 * 1024L);
+        ReflectionTestUtils.setField(cache, "freshFor", freshFor);
+        ReflectionTestUtils.setField(cache, "staleFor", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.init();
+        return cache;
+    }
+
+    @Test
+    public void freshHitTest(){
+        PostResponseCache cache = createCache(Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        // Second call is served from the cache without calling the loader
+        cache.get("key", () -> ResponseEntity.ok(List.of("load " + loads.incrementAndGet())));
+        ResponseEntity<byte[]> response = cache.get("key", () -> ResponseEntity.ok(List.of("load " + loads.incrementAndGet())));
+        assertEquals("[\"load 1\"]", new String(response.getBody()));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void staleWhileRevalidateTest() throws InterruptedException {
+        PostResponseCache cache = createCache(Duration.ZERO);  // every entry is stale right away
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("key", () -> ResponseEntity.ok(List.of("load " + loads.incrementAndGet())));
+        // The stale bytes are returned right away, the refresh runs in the background
+        ResponseEntity<byte[]> stale = cache.get("key", () -> ResponseEntity.ok(List.of("load " + loads.incrementAndGet())));
+        assertEquals("[\"load 1\"]", new String(stale.getBody()));
+        for (int i = 0; i < 100 && loads.get() < 2; i++) Thread.sleep(10);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void invalidateAllTest(){
+        PostResponseCache cache = createCache(Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("key", () -> ResponseEntity.ok(List.of("load " + loads.incrementAndGet())));
+        cache.invalidateAll();
+        // After invalidation the loader runs again
+        ResponseEntity<byte[]> response = cache.get("key", () -> ResponseEntity.ok(List.of("load " + loads.incrementAndGet())));
+        assertEquals("[\"load 2\"]", new String(response.getBody()));
+    }
+
+    @Test
+    public void errorResponsesAreNotCachedTest(){
+        PostResponseCache cache = createCache(Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("key", () -> { loads.incrementAndGet(); return ResponseEntity.notFound().build(); });
+        ResponseEntity<byte[]> response = cache.get("key", () -> { loads.incrementAndGet(); return ResponseEntity.notFound().build(); });
+        assertEquals(404, response.getStatusCode().value());
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,62 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PostSearchIndexTest {
+
+    @Test
+    public void tokenizeTest(){
+        // Lower-case, split on punctuation and whitespace
+        assertEquals(List.of("spring", "boot", "3", "tips"), PostSearchIndex.tokenize("Spring-Boot 3: TIPS!"));
+        assertTrue(PostSearchIndex.tokenize("  ").isEmpty());
+    }
+
+    @Test
+    public void searchTitleAndContentTest(){
+        PostSearchIndex index = new PostSearchIndex();
+        index.index(1L, "Spring tips", "short post");
+        index.index(2L, "Other title", "all about spring");
+        index.index(3L, "Unrelated", "nothing here");
+        // A match in the title ranks above a match in the content
+        assertEquals(List.of(1L, 2L), index.search("spring", 0, 10));
+        // No match at all
+        assertTrue(index.search("kotlin", 0, 10).isEmpty());
+    }
+
+    @Test
+    public void searchRanksMoreMatchingTermsFirstTest(){
+        PostSearchIndex index = new PostSearchIndex();
+        index.index(1L, "Java", "streams");
+        index.index(2L, "Java streams", "java streams in depth");
+        assertEquals(List.of(2L, 1L), index.search("java streams", 0, 10));
+    }
+
+    @Test
+    public void searchPagingTest(){
+        PostSearchIndex index = new PostSearchIndex();
+        for (long id = 1; id <= 5; id++) index.index(id, "post " + id, "same content");
+        // Equal scores are ordered by id
+        assertEquals(List.of(1L, 2L), index.search("content", 0, 2));
+        assertEquals(List.of(3L, 4L), index.search("content", 1, 2));
+        assertEquals(List.of(5L), index.search("content", 2, 2));
+        assertTrue(index.search("content", 3, 2).isEmpty());
+    }
+
+    @Test
+    public void reindexAndRemoveTest(){
+        PostSearchIndex index = new PostSearchIndex();
+        index.index(1L, "old title", "content");
+        // Indexing the same post again replaces its terms
+        index.index(1L, "new title", "content");
+        assertTrue(index.search("old", 0, 10).isEmpty());
+        assertEquals(List.of(1L), index.search("new", 0, 10));
+        // Removed posts are no longer found
+        index.removeAll(List.of(1L));
+        assertTrue(index.search("new", 0, 10).isEmpty());
+    }
+}
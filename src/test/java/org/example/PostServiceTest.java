@@ -0,0 +1,124 @@
+package org.example;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class PostServiceTest {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserPostStatsService userPostStatsService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private User createUser(String email) {
+        return userRepository.save(new User("Test", "User", 25, "password123", email));
+    }
+
+    private List<Post> posts(int count) {
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < count; i++) posts.add(new Post("title " + i, "content " + i, null));
+        return posts;
+    }
+
+    @Test
+    public void testCreateAll_InsertsInJdbcBatches() {
+        User user = createUser("batch@example.com");
+        statistics.clear();
+
+        List<PostBatchResult> results = postService.createAll(user, posts(120));
+
+        assertEquals(120, results.size());
+        assertTrue(results.stream().allMatch(result -> PostBatchResult.CREATED.equals(result.status())));
+        assertEquals(121, statistics.getEntityInsertCount()); // the posts and the user's stats row
+        // 3 insert batches (50 + 50 + 20), a few sequence calls, the change numbers (update, select)
+        // and the first stats row (update, lock, count, insert)
+        // instead of 120 single inserts
+        assertTrue(statistics.getPrepareStatementCount() <= 14,
+                "Expected batched inserts but got " + statistics.getPrepareStatementCount() + " statements");
+        assertEquals(120, postRepository.findByUserId(user.getId()).size());
+    }
+
+    @Test
+    public void testCreateAll_RejectsInvalidPostsOnly() {
+        User user = createUser("batch-invalid@example.com");
+        List<Post> posts = posts(3);
+        posts.get(1).setTitle(" ");
+        posts.add(null);
+        posts.add(new Post("long content", "x".repeat(PostService.MAX_TEXT_LENGTH + 1), null));
+
+        List<PostBatchResult> results = postService.createAll(user, posts);
+
+        assertEquals(5, results.size());
+        for (int i = 0; i < results.size(); i++) assertEquals(i, results.get(i).index());
+        assertEquals(PostBatchResult.CREATED, results.get(0).status());
+        assertNotNull(results.get(0).id());
+        assertEquals(PostBatchResult.REJECTED, results.get(1).status());
+        assertEquals("Title cant be blank", results.get(1).error());
+        assertEquals(PostBatchResult.CREATED, results.get(2).status());
+        assertEquals(PostBatchResult.REJECTED, results.get(3).status());
+        assertEquals(PostBatchResult.REJECTED, results.get(4).status());
+        assertEquals(2, postRepository.findByUserId(user.getId()).size());
+    }
+
+    @Test
+    public void testStats_CreatedWithTheUser() {
+        User user = userPostStatsService.createUser(new User("Test", "User", 25, "password123", "new@example.com"));
+        statistics.clear();
+
+        UserPostStats stats = userPostStatsService.get(user.getId()).orElseThrow();
+
+        assertEquals(0, stats.getPostCount());
+        assertNull(stats.getFirstPostDate());
+        assertEquals(1, statistics.getPrepareStatementCount()); // one primary key lookup
+    }
+
+    @Test
+    public void testStats_CountsPostsFromBeforeTheCounters() {
+        // Saved straight through the repositories - like a user and posts stored before the counters existed
+        User user = createUser("stats@example.com");
+        postRepository.saveAll(List.of(new Post("old 1", null, user), new Post("old 2", null, user)));
+        assertTrue(userPostStatsService.get(user.getId()).isEmpty());
+
+        // The first counted post creates the stats row from the posts table, the next ones only add to it
+        postService.create(user, new Post("new 1", null, null));
+        postService.createAll(user, posts(3));
+        statistics.clear();
+        UserPostStats stats = userPostStatsService.get(user.getId()).orElseThrow();
+
+        assertEquals(6, stats.getPostCount());
+        assertTrue(stats.getFirstPostDate().compareTo(stats.getLastPostDate()) <= 0);
+        assertEquals(1, statistics.getPrepareStatementCount()); // one primary key lookup, no posts loaded
+    }
+}
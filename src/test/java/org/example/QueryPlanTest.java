@@ -0,0 +1,120 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Runs EXPLAIN on the SQL of every filtering repository finder (captured through the slow query log)
+ * and fails when H2 plans a full table scan - i.e. when an index from the migrations is missing or unusable
+ */
+@SpringBootTest(properties = "jpa.slow-query.threshold=0ms")  // every statement is captured
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class QueryPlanTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserPostStatsRepository userPostStatsRepository;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Enough rows that the optimizer has a reason to prefer an index
+    @BeforeEach
+    public void setUp() {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            users.add(new Object[]{"Name", "Last", 18 + i % 100, "user" + i + "@example.com", "password123", "USER"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (name, last_name, age, email, password, role) VALUES (?, ?, ?, ?, ?, ?)", users);
+        Long firstUserId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Long.class);
+
+        List<Object[]> posts = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            posts.add(new Object[]{i, "title " + i, "content " + i, Timestamp.valueOf(START.plusMinutes(i)), firstUserId + i % 200, i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO posts (id, title, content, created_date, version, user_id, change_seq) " +
+                "VALUES (?, ?, ?, ?, 0, ?, ?)", posts);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    // Runs the finder and returns the plans of the statements it sent
+    private List<String> plans(Runnable finder) {
+        slowQueryLog.clear();
+        finder.run();
+        List<String> plans = new ArrayList<>();
+        for (SlowQueryLog.SlowQuery query : slowQueryLog.getEntries()) {
+            if (!query.sql().trim().toLowerCase().startsWith("select")) continue;
+            plans.add(jdbcTemplate.query(con -> con.prepareStatement("EXPLAIN " + query.sql()),
+                    rs -> rs.next() ? rs.getString(1) : null));
+        }
+        assertFalse(plans.isEmpty(), "The finder did not run a query");
+        return plans;
+    }
+
+    // H2 marks a full scan as "/* PUBLIC.POSTS.tableScan */", an index lookup as "/* PUBLIC.<index>: <condition> */"
+    private void assertUsesIndex(String finder, Runnable call) {
+        for (String plan : plans(call)) {
+            assertFalse(plan.contains(".tableScan"), finder + " scans the whole table:\n" + plan);
+        }
+    }
+
+    @Test
+    public void testPostFinders() {
+        LocalDateTime middle = START.plusMinutes(1000);
+        assertUsesIndex("findByTitle", () -> postRepository.findByTitle("title 7"));
+        assertUsesIndex("findByCreatedDateAfter", () -> postRepository.findByCreatedDateAfter(START.plusMinutes(1990)));
+        assertUsesIndex("findPageAfter", () -> postRepository.findPageAfter(middle, 1000L, Limit.of(20)));
+        assertUsesIndex("findByUserId", () -> postRepository.findByUserId(5L));
+        assertUsesIndex("findByUserIdIn", () -> postRepository.findByUserIdIn(List.of(5L, 6L)));
+        assertUsesIndex("findFirstPageByUserId", () -> postRepository.findFirstPageByUserId(5L, Limit.of(20)));
+        assertUsesIndex("findPageAfterByUserId", () -> postRepository.findPageAfterByUserId(5L, middle, 1000L, Limit.of(20)));
+        assertUsesIndex("UserPostStatsRepository.countPosts", () -> userPostStatsRepository.countPosts(5L));
+        assertUsesIndex("findChangedAfter", () -> postRepository.findChangedAfter(1990, Limit.of(20)));
+        assertUsesIndex("findChangedAfterByUserId", () -> postRepository.findChangedAfterByUserId(5L, 1000, Limit.of(20)));
+        // The dynamic /posts/query filters - each combination has to reach an index as well
+        PageRequest newestFirst = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdDate", "id"));
+        assertUsesIndex("findSlice(userId)", () -> postRepository.findSlice(
+                new PostQuery(5L, null, null, null, null).toSpecification(), newestFirst));
+        assertUsesIndex("findSlice(userId, keyword, from, to)", () -> postRepository.findSlice(
+                new PostQuery(5L, null, "title", START, middle).toSpecification(), newestFirst));
+        assertUsesIndex("findSlice(title)", () -> postRepository.findSlice(
+                new PostQuery(null, "title 7", null, null, null).toSpecification(), newestFirst));
+        assertUsesIndex("findSlice(from, to)", () -> postRepository.findSlice(
+                new PostQuery(null, null, null, middle, middle.plusMinutes(10)).toSpecification(), newestFirst));
+    }
+
+    @Test
+    public void testUserFinders() {
+        assertUsesIndex("findByAge", () -> userRepository.findByAge(30));
+        assertUsesIndex("findByAgeGreaterThan", () -> userRepository.findByAgeGreaterThan(115));
+        assertUsesIndex("findSummariesByAge", () -> userRepository.findSummariesByAge(30));
+        assertUsesIndex("findSummariesByAgeGreaterThan", () -> userRepository.findSummariesByAgeGreaterThan(115));
+        // The unique constraint on email comes with its own index
+        assertUsesIndex("findByEmail", () -> userRepository.findByEmail("user7@example.com"));
+    }
+}
@@ -0,0 +1,62 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void allowsBurstThenRejectsTest() {
+        RateLimiter limiter = new RateLimiter(5, Duration.ofSeconds(5), 100, now::get);
+        for (int i = 0; i < 5; i++) assertEquals(0, limiter.tryAcquire("a"));
+
+        long wait = limiter.tryAcquire("a");
+        assertEquals(TimeUnit.SECONDS.toNanos(1), wait);  // one token comes back per second
+        // Other keys have their own bucket
+        assertEquals(0, limiter.tryAcquire("b"));
+    }
+
+    @Test
+    public void refillsOverTimeTest() {
+        RateLimiter limiter = new RateLimiter(5, Duration.ofSeconds(5), 100, now::get);
+        for (int i = 0; i < 5; i++) limiter.tryAcquire("a");
+        assertTrue(limiter.tryAcquire("a") > 0);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a") > 0);   // rejected attempts did not use up tokens
+    }
+
+    @Test
+    public void concurrentAttemptsTest() throws Exception {
+        RateLimiter limiter = new RateLimiter(100, Duration.ofHours(1), 100);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> {
+                if (limiter.tryAcquire("a") == 0) allowed.incrementAndGet();
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(100, allowed.get());
+    }
+
+    @Test
+    public void boundedKeysTest() {
+        RateLimiter limiter = new RateLimiter(1, Duration.ofHours(1), 10, now::get);
+        for (int i = 0; i < 1000; i++) limiter.tryAcquire("key-" + i);
+        assertEquals(10, limiter.size());
+    }
+}
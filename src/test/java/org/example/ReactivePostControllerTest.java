@@ -0,0 +1,159 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The "reactive" profile - WebFlux on Netty, posts read over R2DBC from the same H2 database Flyway migrated
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.datasource.url=jdbc:h2:mem:reactive-test",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-test",
+        "posts.search.sync-interval=100ms"})
+@AutoConfigureWebTestClient
+@ActiveProfiles({"test", "reactive"})
+@DirtiesContext
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ReactivePostControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private UserPostStatsService userPostStatsService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    // Written through the regular (JPA) service - the reactive side only reads
+    @BeforeAll
+    public void createPosts() {
+        User user = userRepository.save(new User("Test", "User", 30, "password123", "reactive@example.com"));
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 1; i <= 5; i++) {
+            Post post = new Post(i == 5 ? "Reactive streams" : "Post " + i, "content " + i, user);
+            post.setCreatedDate(start.plusMinutes(i));
+            postService.create(user, post);
+        }
+    }
+
+    @Test
+    public void testServletStackIsOff() {
+        assertTrue(context.getBeansOfType(PostController.class).isEmpty());
+        assertFalse(context.getBeansOfType(ReactivePostController.class).isEmpty());
+    }
+
+    @Test
+    public void testAllPostsPaged() {
+        String cursor = webTestClient.get().uri("/posts?limit=3").exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(PostController.NEXT_CURSOR_HEADER)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$[0].title").isEqualTo("Post 1")
+                .jsonPath("$[0].createdDate").isEqualTo("2024-01-01T12:01:00")
+                .jsonPath("$[0].version").isEqualTo(0)
+                .jsonPath("$[0].user").doesNotExist()
+                .returnResult().getResponseHeaders().getFirst(PostController.NEXT_CURSOR_HEADER);
+
+        webTestClient.get().uri("/posts?limit=3&cursor={cursor}", cursor).exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(PostController.NEXT_CURSOR_HEADER)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].title").isEqualTo("Post 4");
+
+        webTestClient.get().uri("/posts?cursor=not-a-cursor").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testUserPosts() {
+        Long userId = userRepository.findByEmail("reactive@example.com").orElseThrow().getId();
+        webTestClient.get().uri("/users/{userId}/posts", userId).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(5);
+        webTestClient.get().uri("/users/999/posts").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testByTitleAndSearch() {
+        webTestClient.get().uri("/posts/title/Post 2").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].content").isEqualTo("content 2");
+        webTestClient.get().uri("/posts/title/missing").exchange().expectStatus().isNotFound();
+
+        webTestClient.get().uri("/posts/search/streams").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].title").isEqualTo("Reactive streams");
+        webTestClient.get().uri("/posts/search/nothing").exchange().expectStatus().isNotFound();
+    }
+
+    // Written after startup - only the change feed brings these into the index (the fallback only searches titles)
+    @Test
+    public void testSearchFollowsChanges() throws Exception {
+        User user = userPostStatsService.createUser(new User("Late", "User", 30, "password123", "late@example.com"));
+        postService.create(user, new Post("Late post", "written after startup quasar", user));
+        assertEquals(200, awaitSearchStatus("quasar", 200));
+        webTestClient.get().uri("/posts/search/quasar").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].title").isEqualTo("Late post");
+
+        // Deleting the user leaves tombstones for the posts - they leave the index
+        transactionTemplate.executeWithoutResult(status ->
+                userPostStatsService.deleteUser(userRepository.findById(user.getId()).orElseThrow()));
+        assertEquals(404, awaitSearchStatus("quasar", 404));
+    }
+
+    // Searches until the status is the expected one (at most 5 seconds), returns the last status
+    private int awaitSearchStatus(String keyword, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        int status;
+        while ((status = webTestClient.get().uri("/posts/search/{keyword}", keyword).exchange()
+                .returnResult(String.class).getStatus().value()) != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        return status;
+    }
+
+    @Test
+    public void testJwtSemantics() {
+        // Public reads work without a token, a bad token is still rejected
+        webTestClient.get().uri("/posts").header("Authorization", "Bearer not-a-token").exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody(String.class).isEqualTo("Invalid token");
+        // Everything else needs a valid token
+        webTestClient.get().uri("/users").exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody(String.class).isEqualTo("Unauthorized");
+        webTestClient.get().uri("/actuator/hibernate")
+                .header("Authorization", "Bearer " + jwtUtil.generateToken("user@example.com", Role.USER)).exchange()
+                .expectStatus().isForbidden();
+        webTestClient.get().uri("/actuator/hibernate")
+                .header("Authorization", "Bearer " + jwtUtil.generateToken("admin@example.com", Role.ADMIN)).exchange()
+                .expectStatus().isOk();
+    }
+}
@@ -0,0 +1,67 @@
+package org.example;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Public post reads on the servlet stack (JPA) vs the reactive stack (profile "reactive", WebFlux + R2DBC),
+ * against the H2 test profile with the same data and the same clients
+ *
+ * Not part of the normal build - run with: mvn -Pbenchmark test -Dtest=ReactiveReadBenchmarkTest
+ * Tune with -Dbenchmark.clients=1000 -Dbenchmark.requests-per-client=20 (see VirtualThreadBenchmarkTest)
+ */
+@Tag("benchmark")
+public class ReactiveReadBenchmarkTest {
+    private static final int SEED_USERS = 50;
+    private static final int POSTS_PER_USER = 40;
+
+    @Test
+    public void compareStacks() throws Exception {
+        List<VirtualThreadBenchmarkTest.Result> results = new ArrayList<>();
+        results.add(run("servlet"));
+        results.add(run("reactive"));
+        VirtualThreadBenchmarkTest.report(results);
+    }
+
+    private VirtualThreadBenchmarkTest.Result run(String mode) throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(Main.class)
+                .properties("server.port=0", "logging.level.root=WARN");
+        builder = mode.equals("servlet") ? builder.profiles("test") : builder.profiles("test", "reactive");
+
+        // Arguments, not default properties - they have to win over the profile files
+        try (ConfigurableApplicationContext context = builder.run(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark-" + mode,
+                "--spring.r2dbc.url=r2dbc:h2:mem:///benchmark-" + mode,
+                // The servlet stack would answer from its response cache - both sides query the database
+                "--posts.response-cache.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--access-log.enabled=false")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            UserRepository userRepository = context.getBean(UserRepository.class);
+            PostService postService = context.getBean(PostService.class);
+            LocalDateTime start = LocalDateTime.now().minusDays(1);
+            for (int u = 0; u < SEED_USERS; u++) {
+                User user = userRepository.save(new User("Bench", "User", 30, "password123", "bench" + u + "@example.com"));
+                List<Post> posts = new ArrayList<>();
+                for (int p = 0; p < POSTS_PER_USER; p++) {
+                    Post post = new Post("Post " + p, "content of post " + p, user);
+                    post.setCreatedDate(start.plusSeconds(u * POSTS_PER_USER + p));
+                    posts.add(post);
+                }
+                postService.createAll(user, posts);
+            }
+            // A page of 50 posts - one keyset query and 50 rows to serialize per request
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/posts?limit=50")).build();
+            return VirtualThreadBenchmarkTest.load(mode, request);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.example;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Primary and replica are two separate in-memory databases with the same user in both,
+// so the tests can see which of them a request wrote to
+@SpringBootTest(properties = {
+        "datasource.replicas[0].url=" + ReplicaRoutingConfigTest.REPLICA_URL,
+        "datasource.replicas[0].username=sa",
+        "datasource.replicas[0].hikari.maximum-pool-size=2"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ReplicaRoutingConfigTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-routing-test-replica;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate primary;
+
+    @BeforeAll
+    public static void migrateReplica() {
+        Flyway.configure()
+                .dataSource(REPLICA_URL, "sa", "")
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .load()
+                .migrate();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        // Outside of a transaction the routing DataSource hands out primary connections
+        primary = new JdbcTemplate(dataSource);
+        for (JdbcTemplate database : new JdbcTemplate[]{primary, replica}) {
+            database.update("DELETE FROM posts");
+            database.update("DELETE FROM user_post_stats");
+            database.update("DELETE FROM users");
+            database.update("INSERT INTO users (id, name, last_name, age, email, password, role) " +
+                    "VALUES (1, 'Anna', 'Smith', 30, 'anna@example.com', 'password-hash', 'USER')");
+        }
+    }
+
+    // findById reads in a read-only transaction (replica), the post must still be written to the primary
+    @Test
+    public void testReadThenCreatePostWritesToPrimary() throws Exception {
+        String token = jwtUtil.generateToken("anna@example.com", Role.USER);
+        mockMvc.perform(post("/users/{userId}/posts", 1L)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"test title\",\"content\":\"test content\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals(1, count(primary, "SELECT COUNT(*) FROM posts WHERE user_id = 1"));
+        assertEquals(0, count(replica, "SELECT COUNT(*) FROM posts"));
+    }
+
+    @Test
+    public void testReadThenUpdateUserWritesToPrimary() throws Exception {
+        String token = jwtUtil.generateToken("anna@example.com", Role.USER);
+        mockMvc.perform(put("/users/{id}", 1L)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Updated\",\"lastName\": \"Smith\",\"age\":31,\"password\":\"testPassword123\",\"email\":\"anna@example.com\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals("Updated", primary.queryForObject("SELECT name FROM users WHERE id = 1", String.class));
+        assertEquals("Anna", replica.queryForObject("SELECT name FROM users WHERE id = 1", String.class));
+    }
+
+    private static long count(JdbcTemplate database, String sql) {
+        return database.queryForObject(sql, Long.class);
+    }
+}
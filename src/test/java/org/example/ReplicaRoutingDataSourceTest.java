@@ -0,0 +1,96 @@
+package org.example;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReplicaRoutingDataSourceTest {
+    private ReplicaRoutingDataSource routing;
+    private JdbcDataSource brokenReplica;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readTransaction;
+
+    private static JdbcDataSource h2(String name) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return h2;
+    }
+
+    private void createRouting(Duration stickyFor, DataSource... replicas) {
+        routing = new ReplicaRoutingDataSource(h2("routing-primary"), List.of(replicas), stickyFor, Duration.ofHours(1));
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        writeTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readTransaction.setReadOnly(true);
+    }
+
+    private String database(TransactionTemplate transaction) {
+        return transaction.execute(status -> jdbcTemplate.queryForObject("CALL DATABASE()", String.class));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        routing.close();
+    }
+
+    @Test
+    public void readOnlyTransactionsGoRoundRobinTest() {
+        createRouting(Duration.ofSeconds(5), h2("routing-replica-a"), h2("routing-replica-b"));
+        assertEquals("ROUTING-PRIMARY", database(writeTransaction));
+        assertEquals("ROUTING-REPLICA-A", database(readTransaction));
+        assertEquals("ROUTING-REPLICA-B", database(readTransaction));
+        assertEquals("ROUTING-REPLICA-A", database(readTransaction));
+    }
+
+    @Test
+    public void writerReadsFromPrimaryTest() throws Exception {
+        createRouting(Duration.ofMillis(200), h2("routing-replica-a"));
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "writer@example.com", null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        assertEquals("ROUTING-REPLICA-A", database(readTransaction));
+
+        // Just wrote - reads stay on the primary until the replica had time to catch up
+        database(writeTransaction);
+        assertEquals("ROUTING-PRIMARY", database(readTransaction));
+        Thread.sleep(300);
+        assertEquals("ROUTING-REPLICA-A", database(readTransaction));
+    }
+
+    @Test
+    public void unhealthyReplicaIsSkippedTest() {
+        brokenReplica = h2("routing-replica-b");
+        createRouting(Duration.ofSeconds(5), h2("routing-replica-a"), brokenReplica);
+        brokenReplica.setURL("jdbc:h2:mem:routing-replica-b;IFEXISTS=TRUE;NO_SUCH_SETTING=1");
+        routing.checkReplicas();
+        assertEquals(List.of("replica-0"), routing.getHealthyReplicas());
+        assertEquals("ROUTING-REPLICA-A", database(readTransaction));
+        assertEquals("ROUTING-REPLICA-A", database(readTransaction));
+    }
+
+    @Test
+    public void noHealthyReplicaFallsBackToPrimaryTest() {
+        brokenReplica = h2("routing-replica-b");
+        createRouting(Duration.ofSeconds(5), brokenReplica);
+        brokenReplica.setURL("jdbc:h2:mem:routing-replica-b;NO_SUCH_SETTING=1");
+        routing.checkReplicas();
+        assertEquals(List.of(), routing.getHealthyReplicas());
+        assertEquals("ROUTING-PRIMARY", database(readTransaction));
+    }
+}
@@ -0,0 +1,44 @@
+package org.example;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SemaphoreDataSourceTest {
+
+    private SemaphoreDataSource createDataSource(int permits) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:semaphore-test");
+        return new SemaphoreDataSource(h2, permits, Duration.ofMillis(100));
+    }
+
+    @Test
+    public void limitsOpenConnectionsTest() throws Exception {
+        SemaphoreDataSource dataSource = createDataSource(1);
+        Connection first = dataSource.getConnection();
+        assertEquals(0, dataSource.getAvailablePermits());
+        // The only permit is taken - the second caller times out
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        first.close();
+        assertEquals(1, dataSource.getAvailablePermits());
+        try (Connection second = dataSource.getConnection()) {
+            assertTrue(second.isValid(1));
+        }
+        assertEquals(1, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    public void closeTwiceReleasesOnceTest() throws Exception {
+        SemaphoreDataSource dataSource = createDataSource(2);
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+        assertEquals(2, dataSource.getAvailablePermits());
+    }
+}
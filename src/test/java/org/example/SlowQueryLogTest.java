@@ -0,0 +1,42 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SlowQueryLogTest {
+
+    @Test
+    public void keepsOnlySlowStatementsTest(){
+        SlowQueryLog log = new SlowQueryLog(Duration.ofMillis(100), 10);
+        log.record("select fast", 5_000_000);
+        log.record("select slow", 150_000_000);
+        assertEquals(1, log.getCount());
+        assertEquals("select slow", log.getEntries().get(0).sql());
+        assertEquals(150, log.getEntries().get(0).millis());
+    }
+
+    @Test
+    public void ringBufferKeepsNewestTest(){
+        SlowQueryLog log = new SlowQueryLog(Duration.ZERO, 3);
+        for (int i = 1; i <= 5; i++) log.record("select " + i, 1);
+        List<SlowQueryLog.SlowQuery> entries = log.getEntries();
+        assertEquals(5, log.getCount());
+        assertEquals(3, entries.size());
+        assertEquals("select 5", entries.get(0).sql());
+        assertEquals("select 3", entries.get(2).sql());
+
+        log.clear();
+        assertEquals(0, log.getEntries().size());
+    }
+
+    @Test
+    public void rejectsZeroCapacityTest(){
+        // An empty ring would fail on every recorded statement (% 0) - fail at startup instead
+        assertThrows(IllegalArgumentException.class, () -> new SlowQueryLog(Duration.ZERO, 0));
+    }
+}
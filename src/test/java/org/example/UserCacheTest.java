@@ -0,0 +1,87 @@
+package org.example;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class UserCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private User createUser() {
+        return userRepository.save(new User("Test", "User", 25, "password123", "cache@example.com"));
+    }
+
+    @Test
+    public void testFindById_ServedFromCache() {
+        User user = createUser();
+        userRepository.findById(user.getId());  // warms the cache
+        statistics.clear();
+        // Every call runs in its own transaction, none of them reaches the database
+        userRepository.findById(user.getId());
+        userRepository.findById(user.getId());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(2, statistics.getDomainDataRegionStatistics("users").getHitCount());
+    }
+
+    @Test
+    public void testFindByEmail_ServedFromQueryCache() {
+        createUser();
+        statistics.clear();
+        userRepository.findByEmail("cache@example.com");
+        userRepository.findByEmail("cache@example.com");
+        assertEquals(1, statistics.getQueryExecutionCount());
+        assertEquals(1, statistics.getQueryRegionStatistics("users-by-email").getHitCount());
+    }
+
+    @Test
+    public void testUpdate_RefreshesCache() {
+        User user = createUser();
+        userRepository.findById(user.getId());
+        // Update through Hibernate - the cached entry must follow
+        user.setName("Updated");
+        userRepository.save(user);
+        assertEquals("Updated", userRepository.findById(user.getId()).get().getName());
+    }
+
+    @Test
+    public void testDelete_EvictsCache() {
+        User user = createUser();
+        userRepository.findById(user.getId());
+        userRepository.findByEmail("cache@example.com");
+        userRepository.delete(user);
+        // Neither the entity nor the cached query result survive the delete
+        assertTrue(userRepository.findById(user.getId()).isEmpty());
+        assertTrue(userRepository.findByEmail("cache@example.com").isEmpty());
+    }
+
+    @Test
+    public void testRegistration_InvalidatesQueryCache() {
+        // A cached "not found" must not hide a user registered afterwards
+        assertTrue(userRepository.findByEmail("cache@example.com").isEmpty());
+        createUser();
+        assertTrue(userRepository.findByEmail("cache@example.com").isPresent());
+    }
+}
@@ -233,5 +233,155 @@ public class UserControllerMockMvcTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void testExportUsers()throws Exception{
+        String token = createValidToken();
+        //Create user
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"test name\",\"lastName\":\"test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test@example.com\"}"));
+        //export has one line per user, without the password
+        mockMvc.perform(get("/users/export")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string(containsString("\"email\":\"test@example.com\"")))
+                .andExpect(content().string(not(containsString("password"))));
+    }
+
+    @Test
+    public void testExportUsers_NotAdmin()throws Exception{
+        String token = jwtUtil.generateToken("user@example.com", Role.USER);
+        mockMvc.perform(get("/users/export")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void testGetAllUser_Summaries()throws Exception{
+        String token = createValidToken();
+        //Create user
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"test name\",\"lastName\":\"test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test@example.com\"}"));
+        //users are listed without password and without posts
+        mockMvc.perform(get("/users")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].email", is("test@example.com")))
+                .andExpect(jsonPath("$[0].password").doesNotExist())
+                .andExpect(jsonPath("$[0].posts").doesNotExist());
+    }
+
+    @Test
+    public void testGetAllUser_IncludePosts()throws Exception{
+        String token = createValidToken();
+        //Create 2 users (will get ID=1 and ID=2)
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"test name\",\"lastName\":\"test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test@example.com\"}"));
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"test 2 name\",\"lastName\":\"test last name\",\"age\":30,\"password\":\"testPassword123\",\"email\":\"test2@example.com\"}"));
+        //Create 1 post for user ID=1
+        mockMvc.perform(post("/users/{userId}/posts", 1L)
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"test 1 title\",\"content\":\"test 1 content\"}"));
+        //posts are attached to their own user only
+        mockMvc.perform(get("/users/age/{age}", 30).param("include", "posts")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].posts", hasSize(1)))
+                .andExpect(jsonPath("$[0].posts[0].title", is("test 1 title")))
+                .andExpect(jsonPath("$[1].posts", hasSize(0)));
+    }
 
-}
\ No newline at end of file
+    @Test
+    public void testImportUsers_Csv()throws Exception{
+        String token = createValidToken();
+        mockMvc.perform(post("/users")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Test name\",\"lastName\":\"Test last name\",\"age\":33,\"password\":\"testPassword123\",\"email\":\"existing@example.com\"}"));
+        //Failed login caches "no such user" before the import
+        AsyncMockMvc.perform(mockMvc, post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"anna@example.com\",\"password\":\"annaPassword1\"}"))
+                .andExpect(status().isUnauthorized());
+
+        String csv = "name,lastName,age,email,password\n" +
+                "Anna,Smith,30,anna@example.com,annaPassword1\n" +
+                "\"Bob, Jr\",Jones,41,bob@example.com,bobPassword1\n" +
+                "Anna,Again,30,anna@example.com,annaPassword2\n" +
+                "Old,User,50,Existing@Example.com,oldPassword1\n" +
+                "Kid,User,ten,kid@example.com,kidPassword1\n" +
+                "Anna,Upper,30,Anna@Example.com,annaPassword3\n";
+        mockMvc.perform(post("/users/import")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(2)))
+                .andExpect(jsonPath("$.rejected", is(4)))
+                .andExpect(jsonPath("$.errors[*].row", containsInAnyOrder(3, 4, 5, 6)))
+                .andExpect(jsonPath("$.errors[?(@.row == 3)].error", contains("Duplicate email in import")))
+                .andExpect(jsonPath("$.errors[?(@.row == 4)].error", contains("Email already exists")))
+                .andExpect(jsonPath("$.errors[?(@.row == 5)].error", contains("Age must be a number")))
+                //Emails are compared without case (rows 4 and 6), like the unique index on MySQL
+                .andExpect(jsonPath("$.errors[?(@.row == 6)].error", contains("Duplicate email in import")));
+
+        mockMvc.perform(get("/users/email/{email}", "bob@example.com")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Bob, Jr")));
+        //Imported passwords are hashed, and the cached "no such user" is gone
+        AsyncMockMvc.perform(mockMvc, post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"anna@example.com\",\"password\":\"annaPassword1\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testImportUsers_Ndjson()throws Exception{
+        String ndjson = "{\"name\":\"Anna\",\"lastName\":\"Smith\",\"age\":30,\"email\":\"anna@example.com\",\"password\":\"annaPassword1\"}\n" +
+                "{\"name\":\"Bob\",\"lastName\":\"Jones\",\"age\":15,\"email\":\"bob@example.com\",\"password\":\"bobPassword1\"}\n" +
+                "not json\n";
+        mockMvc.perform(post("/users/import")
+                        .header("Authorization", "Bearer " + createValidToken())
+                        .contentType("application/x-ndjson")
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.rejected", is(2)))
+                .andExpect(jsonPath("$.errors[0].row", is(2)))
+                .andExpect(jsonPath("$.errors[0].error", is("Minimum age is 18")))
+                .andExpect(jsonPath("$.errors[1].row", is(3)))
+                .andExpect(jsonPath("$.errors[1].error", is("Malformed JSON")));
+    }
+
+    @Test
+    public void testImportUsers_BadCsvHeader()throws Exception{
+        mockMvc.perform(post("/users/import")
+                        .header("Authorization", "Bearer " + createValidToken())
+                        .contentType("text/csv")
+                        .content("email,password\nanna@example.com,annaPassword1\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testImportUsers_NotAdmin()throws Exception{
+        String userToken = jwtUtil.generateToken("user@example.com", Role.USER);
+        mockMvc.perform(post("/users/import")
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType("text/csv")
+                        .content("name,lastName,age,email,password\n"))
+                .andExpect(status().isForbidden());
+    }
+}
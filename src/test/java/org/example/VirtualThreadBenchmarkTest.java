@@ -0,0 +1,126 @@
+package org.example;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Platform threads vs virtual threads under many concurrent clients, against the H2 test profile
+ *
+ * Not part of the normal build - run with: mvn -Pbenchmark test
+ * (on a JDK 21 add -Pjava21, otherwise the virtual thread run is skipped)
+ * Tune with -Dbenchmark.clients=1000 -Dbenchmark.requests-per-client=20
+ */
+@Tag("benchmark")
+public class VirtualThreadBenchmarkTest {
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 1000);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("benchmark.requests-per-client", 20);
+    private static final int SEED_USERS = 200;
+
+    record Result(String mode, int requests, int errors, double seconds, long p50Micros, long p99Micros) {
+        double throughput() {
+            return requests / seconds;
+        }
+    }
+
+    @Test
+    public void compareThreadModes() throws Exception {
+        List<Result> results = new ArrayList<>();
+        results.add(run("platform"));
+        if (Runtime.version().feature() >= 21) {
+            results.add(run("virtual-threads"));
+        } else {
+            System.out.println("Java " + Runtime.version().feature() + " - skipping the virtual thread run (needs Java 21)");
+        }
+
+        report(results);
+    }
+
+    // Prints the comparison table and fails when any run had errors (also used by ReactiveReadBenchmarkTest)
+    static void report(List<Result> results) {
+        System.out.printf("%n%-16s %10s %8s %12s %10s %10s%n", "mode", "requests", "errors", "req/s", "p50 ms", "p99 ms");
+        for (Result result : results) {
+            System.out.printf("%-16s %10d %8d %12.0f %10.1f %10.1f%n", result.mode(), result.requests(), result.errors(),
+                    result.throughput(), result.p50Micros() / 1000.0, result.p99Micros() / 1000.0);
+        }
+        for (Result result : results) assertEquals(0, result.errors(), result.mode() + " run had failed requests");
+    }
+
+    private Result run(String mode) throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(Main.class)
+                .properties("server.port=0", "spring.datasource.url=jdbc:h2:mem:benchmark-" + mode,
+                        "spring.jpa.show-sql=false", "logging.level.root=WARN");
+        builder = mode.equals("platform") ? builder.profiles("test") : builder.profiles("test", mode);
+
+        try (ConfigurableApplicationContext context = builder.run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            UserRepository userRepository = context.getBean(UserRepository.class);
+            List<User> users = new ArrayList<>();
+            for (int i = 0; i < SEED_USERS; i++) {
+                users.add(new User("Bench", "User", 18 + i % 80, "password123", "bench" + i + "@example.com"));
+            }
+            userRepository.saveAll(users);
+            String token = context.getBean(JwtUtil.class).generateToken("admin@example.com", Role.ADMIN);
+            // Not cached anywhere - every request runs a query
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users/age-above/90"))
+                    .header("Authorization", "Bearer " + token)
+                    .build();
+            return load(mode, request);
+        }
+    }
+
+    // CLIENTS threads, each sends REQUESTS_PER_CLIENT requests one after another
+    static Result load(String mode, HttpRequest request) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger errors = new AtomicInteger();
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            futures.add(clients.submit(() -> {
+                long[] latencies = new long[REQUESTS_PER_CLIENT];
+                start.await();
+                for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                    long begin = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) errors.incrementAndGet();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[i] = (System.nanoTime() - begin) / 1000;
+                }
+                return latencies;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        long[] all = new long[CLIENTS * REQUESTS_PER_CLIENT];
+        int n = 0;
+        for (Future<long[]> future : futures) {
+            for (long latency : future.get()) all[n++] = latency;
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        clients.shutdown();
+        Arrays.sort(all);
+        return new Result(mode, all.length, errors.get(), seconds,
+                all[(int) (all.length * 0.50)], all[(int) (all.length * 0.99)]);
+    }
+}